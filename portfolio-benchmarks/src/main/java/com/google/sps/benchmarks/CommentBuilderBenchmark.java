@@ -0,0 +1,39 @@
+package com.google.sps.benchmarks;
+
+import com.google.sps.entities.Comment;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures building one Comment through the Lombok builder, as done for every comment of the feed
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CommentBuilderBenchmark {
+  private String authorId = "author-1";
+  private String authorName = "Author Number 1";
+  private String commentText = "A comment on the portfolio, saying something about a project!";
+  private long timestampMs = 1593561600000L;
+
+  @Benchmark
+  public Comment buildComment() {
+    return Comment.builder()
+        .authorId(authorId)
+        .authorName(authorName)
+        .commentText(commentText)
+        .timestampMs(timestampMs)
+        .build();
+  }
+}
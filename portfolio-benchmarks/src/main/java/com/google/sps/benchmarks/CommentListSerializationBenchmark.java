@@ -0,0 +1,110 @@
+package com.google.sps.benchmarks;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonWriter;
+import com.google.sps.entities.Comment;
+import com.google.sps.utils.Json;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures serializing a list of Comments to Json with reflective Gson, both into one String
+ * and streamed through a JsonWriter, and streamed with the CommentTypeAdapter as the DataServlet does
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CommentListSerializationBenchmark {
+  @Param({"10", "100", "1000", "10000", "100000"})
+  private int commentCount;
+
+  private Gson gson;
+  private List<Comment> comments;
+
+  @Setup
+  public void setUp() {
+    gson = new Gson();
+    comments = Comments.create(commentCount);
+  }
+
+  @Benchmark
+  public String toJsonString() {
+    return gson.toJson(comments);
+  }
+
+  @Benchmark
+  public void toJsonWriter(Blackhole blackhole) throws IOException {
+    JsonWriter writer = new JsonWriter(new BlackholeWriter(blackhole));
+    writer.beginArray();
+    for (Comment comment : comments) {
+      gson.toJson(comment, Comment.class, writer);
+    }
+    writer.endArray();
+    writer.flush();
+  }
+
+  @Benchmark
+  public void toJsonWriterWithAdapter(Blackhole blackhole) throws IOException {
+    TypeAdapter<Comment> commentAdapter = Json.getCommentAdapter();
+    JsonWriter writer = new JsonWriter(new BlackholeWriter(blackhole));
+    writer.beginArray();
+    for (Comment comment : comments) {
+      commentAdapter.write(writer, comment);
+    }
+    writer.endArray();
+    writer.flush();
+  }
+
+  /**
+   * Writer consuming every character written, standing in for the response writer
+   */
+  private static class BlackholeWriter extends Writer {
+    private final Blackhole blackhole;
+
+    private BlackholeWriter(Blackhole blackhole) {
+      this.blackhole = blackhole;
+    }
+
+    @Override
+    public void write(char[] buffer, int offset, int length) {
+      blackhole.consume(buffer);
+      blackhole.consume(length);
+    }
+
+    @Override
+    public void write(String string) {
+      blackhole.consume(string);
+    }
+
+    @Override
+    public void write(int character) {
+      blackhole.consume(character);
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+}
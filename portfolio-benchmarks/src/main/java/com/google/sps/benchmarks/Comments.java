@@ -0,0 +1,33 @@
+package com.google.sps.benchmarks;
+
+import com.google.sps.entities.Comment;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Creates Comments shaped like the ones posted to the portfolio
+ */
+class Comments {
+  private static final long FIRST_TIMESTAMP_MS = 1593561600000L;
+
+  /**
+   * Returns count Comments from a handful of authors, each with a different text and timestamp
+   */
+  static List<Comment> create(int count) {
+    List<Comment> comments = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      comments.add(Comment.builder()
+          .id((long) i)
+          .authorId("author-" + (i % 50))
+          .authorName("Author Number " + (i % 50))
+          .commentText("Comment number " + i + " on the portfolio, saying something about a project!")
+          .timestampMs(FIRST_TIMESTAMP_MS + i * 1000L)
+          .build()
+      );
+    }
+    return comments;
+  }
+
+  private Comments() {
+  }
+}
@@ -0,0 +1,54 @@
+package com.google.sps.benchmarks;
+
+import com.google.gson.Gson;
+import com.google.sps.utils.Json;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures serializing a User Entity's property map to Json with reflective Gson
+ * and with the UserPropertiesTypeAdapter, as the UserInformationServlet does on GET
+ * The map has the same properties and type as Entity.getProperties of a stored User
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UserPropertiesSerializationBenchmark {
+  private Gson gson;
+  private Map<String, Object> userProperties;
+
+  @Setup
+  public void setUp() {
+    gson = new Gson();
+    Map<String, Object> properties = new HashMap<>();
+    properties.put("display-name", "Author Number 1");
+    properties.put("email", "author1@example.com");
+    properties.put("id", "185804764220139124118");
+    userProperties = Collections.unmodifiableMap(properties);
+  }
+
+  @Benchmark
+  public String toJson() {
+    return gson.toJson(userProperties);
+  }
+
+  @Benchmark
+  public String toJsonWithAdapter() {
+    return Json.getUserPropertiesAdapter().toJson(userProperties);
+  }
+}
@@ -5,17 +5,26 @@ import lombok.Builder;
 import lombok.Getter;
 import lombok.Setter;
 
-@Builder
+@Builder(toBuilder = true)
 @Getter
 @Setter
 /**
  * This is a POJO class meant to store all information required to display a datastore comment object
  * from the DataServlet on one of the portfolio webpages
  * Serialized intended to be done using Gson
+ * id and authorId are only used on the server so they are transient and never serialized
+ * A pending Comment is stored but not shown until moderation makes it visible, pending is also server only
+ * timestampMs is when the Comment was posted, visibleMs when moderation made it visible, which orders the feed
+ * authorNameVersion is the version of the author's display name copied to authorName, also server only
  */
 public class Comment {
+  private transient Long id;
+  private transient String authorId;
   private String authorName;
   private String commentText;
   private long timestampMs;
+  private long visibleMs;
+  private transient boolean pending;
+  private transient long authorNameVersion;
 
 }
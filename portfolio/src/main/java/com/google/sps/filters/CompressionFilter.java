@@ -0,0 +1,93 @@
+package com.google.sps.filters;
+
+import java.io.IOException;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.annotation.WebFilter;
+import javax.servlet.annotation.WebInitParam;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Gzip compresses responses of the Json endpoints for clients which accept gzip
+ * Bodies smaller than min-size-bytes are sent uncompressed, larger bodies are compressed as they are written
+ *   without buffering the whole body
+ */
+@WebFilter(
+    urlPatterns = {"/data", "/data/search", "/data/authors", "/userInfo", "/admin/stats", "/admin/archive"},
+    initParams = @WebInitParam(name = "min-size-bytes", value = "1024")
+)
+public class CompressionFilter implements Filter {
+  private int minSizeBytes;
+
+  @Override
+  public void init(FilterConfig filterConfig) {
+    minSizeBytes = Integer.parseInt(filterConfig.getInitParameter("min-size-bytes"));
+  }
+
+  @Override
+  public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+      throws IOException, ServletException {
+    HttpServletRequest httpRequest = (HttpServletRequest) request;
+    HttpServletResponse httpResponse = (HttpServletResponse) response;
+    // Caches must keep compressed and uncompressed copies apart
+    httpResponse.addHeader("Vary", "Accept-Encoding");
+    if(!acceptsGzip(httpRequest.getHeader("Accept-Encoding"))) {
+      chain.doFilter(request, response);
+      return;
+    }
+    GzipResponseWrapper gzipResponse = new GzipResponseWrapper(httpResponse, minSizeBytes);
+    chain.doFilter(request, gzipResponse);
+    gzipResponse.finish();
+  }
+
+  /**
+   * Returns true iff the Accept-Encoding header gives gzip a non zero quality value,
+   *   or doesn't list gzip and gives * a non zero quality value
+   */
+  private static boolean acceptsGzip(String acceptEncoding) {
+    if(acceptEncoding == null) {
+      return false;
+    }
+    Double gzipQuality = null;
+    Double anyQuality = null;
+    for(String encoding : acceptEncoding.split(",")) {
+      String[] encodingParts = encoding.trim().split(";");
+      String name = encodingParts[0].trim();
+      if("gzip".equalsIgnoreCase(name)) {
+        gzipQuality = getQuality(encodingParts);
+      } else if("*".equals(name)) {
+        anyQuality = getQuality(encodingParts);
+      }
+    }
+    // An explicit gzip entry takes precedence over *
+    Double quality = gzipQuality != null ? gzipQuality : anyQuality;
+    return quality != null && quality > 0;
+  }
+
+  /**
+   * Returns the q parameter of an Accept-Encoding entry split at its semicolons, 1 if it has none
+   *   and 0 if it is malformed
+   */
+  private static double getQuality(String[] encodingParts) {
+    for(int i = 1; i < encodingParts.length; i++) {
+      String parameter = encodingParts[i].trim();
+      if(parameter.startsWith("q=")) {
+        try {
+          return Double.parseDouble(parameter.substring(2));
+        } catch (NumberFormatException e) {
+          return 0;
+        }
+      }
+    }
+    return 1;
+  }
+
+  @Override
+  public void destroy() {
+  }
+}
@@ -0,0 +1,176 @@
+package com.google.sps.filters;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.zip.GZIPOutputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Response which holds back the first minSizeBytes of its body
+ * If the body grows past minSizeBytes it is gzip compressed from then on as it is written,
+ *   otherwise finish sends it uncompressed
+ */
+class GzipResponseWrapper extends HttpServletResponseWrapper {
+  private final int minSizeBytes;
+  private ThresholdOutputStream outputStream;
+  private PrintWriter writer;
+
+  GzipResponseWrapper(HttpServletResponse response, int minSizeBytes) {
+    super(response);
+    this.minSizeBytes = minSizeBytes;
+  }
+
+  @Override
+  public ServletOutputStream getOutputStream() throws IOException {
+    if(writer != null) {
+      throw new IllegalStateException("getWriter has already been called");
+    }
+    if(outputStream == null) {
+      outputStream = new ThresholdOutputStream();
+    }
+    return outputStream;
+  }
+
+  @Override
+  public PrintWriter getWriter() throws IOException {
+    if(writer == null) {
+      if(outputStream != null) {
+        throw new IllegalStateException("getOutputStream has already been called");
+      }
+      outputStream = new ThresholdOutputStream();
+      writer = new PrintWriter(new OutputStreamWriter(outputStream, getCharacterEncoding()));
+    }
+    return writer;
+  }
+
+  /**
+   * The body's length isn't known until it is decided whether to compress it
+   */
+  @Override
+  public void setContentLength(int length) {
+  }
+
+  @Override
+  public void setContentLengthLong(long length) {
+  }
+
+  @Override
+  public void flushBuffer() throws IOException {
+    if(writer != null) {
+      writer.flush();
+    } else if(outputStream != null) {
+      outputStream.flush();
+    }
+  }
+
+  /**
+   * Sends whatever the body still holds back, must be called once the response is complete
+   */
+  void finish() throws IOException {
+    if(writer != null) {
+      writer.flush();
+    }
+    if(outputStream != null) {
+      outputStream.finish();
+    }
+  }
+
+  /**
+   * Buffers writes until more than minSizeBytes were written, then switches to compressing them
+   */
+  private class ThresholdOutputStream extends ServletOutputStream {
+    private ByteArrayOutputStream heldBack = new ByteArrayOutputStream(minSizeBytes);
+    private GZIPOutputStream gzipStream;
+    private boolean finished = false;
+
+    @Override
+    public void write(int b) throws IOException {
+      write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+      if(finished) {
+        throw new IOException("Response is already finished");
+      }
+      if(gzipStream != null) {
+        gzipStream.write(bytes, offset, length);
+        return;
+      }
+      heldBack.write(bytes, offset, length);
+      if(heldBack.size() > minSizeBytes) {
+        startCompressing();
+      }
+    }
+
+    /**
+     * Flushes compressed output, a body still held back stays held back until it is known whether to compress it
+     */
+    @Override
+    public void flush() throws IOException {
+      if(gzipStream != null) {
+        gzipStream.flush();
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      finish();
+    }
+
+    private void startCompressing() throws IOException {
+      HttpServletResponse response = (HttpServletResponse) getResponse();
+      addVary(response);
+      response.setHeader("Content-Encoding", "gzip");
+      // The compressed body is a different representation, so a strong ETag would be wrong for it
+      String eTag = response.getHeader("ETag");
+      if(eTag != null && !eTag.startsWith("W/")) {
+        response.setHeader("ETag", "W/" + eTag);
+      }
+      // Sync flushing lets flush push already written data to the client
+      gzipStream = new GZIPOutputStream(response.getOutputStream(), true);
+      heldBack.writeTo(gzipStream);
+      heldBack = null;
+    }
+
+    private void finish() throws IOException {
+      if(finished) {
+        return;
+      }
+      finished = true;
+      if(gzipStream != null) {
+        gzipStream.finish();
+      } else {
+        // The body could have been compressed for another client, so caches must still tell them apart
+        addVary((HttpServletResponse) getResponse());
+        getResponse().setContentLength(heldBack.size());
+        heldBack.writeTo(getResponse().getOutputStream());
+      }
+      getResponse().getOutputStream().flush();
+    }
+
+    private void addVary(HttpServletResponse response) {
+      for (String vary : response.getHeaders("Vary")) {
+        if(vary.toLowerCase().contains("accept-encoding")) {
+          return;
+        }
+      }
+      response.addHeader("Vary", "Accept-Encoding");
+    }
+
+    @Override
+    public boolean isReady() {
+      return true;
+    }
+
+    @Override
+    public void setWriteListener(WriteListener writeListener) {
+      throw new UnsupportedOperationException("Compressed responses only support blocking writes");
+    }
+  }
+}
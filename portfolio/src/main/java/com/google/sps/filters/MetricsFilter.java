@@ -0,0 +1,77 @@
+package com.google.sps.filters;
+
+import com.google.sps.metrics.Metrics;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.annotation.WebFilter;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Records the status code, latency and Datastore time of every request to Metrics, per endpoint
+ * Asynchronous requests are recorded once they complete
+ */
+@WebFilter(urlPatterns = "/*", asyncSupported = true)
+public class MetricsFilter implements Filter {
+
+  @Override
+  public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+      throws IOException, ServletException {
+    HttpServletRequest httpRequest = (HttpServletRequest) request;
+    HttpServletResponse httpResponse = (HttpServletResponse) response;
+    String endpoint = httpRequest.getServletPath();
+    long startNanos = System.nanoTime();
+    Metrics.startRequest();
+    boolean failed = true;
+    try {
+      chain.doFilter(request, response);
+      failed = false;
+    } finally {
+      long datastoreMicros = Metrics.finishRequest();
+      if(!failed && request.isAsyncStarted()) {
+        request.getAsyncContext().addListener(new AsyncListener() {
+          @Override
+          public void onComplete(AsyncEvent event) {
+            record(endpoint, httpResponse.getStatus(), startNanos, datastoreMicros);
+          }
+
+          @Override
+          public void onTimeout(AsyncEvent event) {
+          }
+
+          @Override
+          public void onError(AsyncEvent event) {
+          }
+
+          @Override
+          public void onStartAsync(AsyncEvent event) {
+          }
+        });
+      } else {
+        // Uncaught exceptions become server errors
+        record(endpoint, failed ? 500 : httpResponse.getStatus(), startNanos, datastoreMicros);
+      }
+    }
+  }
+
+  private static void record(String endpoint, int status, long startNanos, long datastoreMicros) {
+    long latencyMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+    Metrics.recordRequest(endpoint, status, latencyMicros, datastoreMicros);
+  }
+
+  @Override
+  public void init(FilterConfig filterConfig) {
+  }
+
+  @Override
+  public void destroy() {
+  }
+}
@@ -0,0 +1,42 @@
+package com.google.sps.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Request count, status codes and latencies of one endpoint, safe to update from any number of threads
+ */
+public class EndpointStats {
+  private final LongAdder requestCount = new LongAdder();
+  private final Map<Integer, LongAdder> statusCounts = new ConcurrentHashMap<>();
+  private final LatencyHistogram latency = new LatencyHistogram();
+  private final LatencyHistogram datastoreLatency = new LatencyHistogram();
+
+  /**
+   * Records one finished request, datastoreMicros is the time the request spent in Datastore calls
+   */
+  public void record(int status, long latencyMicros, long datastoreMicros) {
+    requestCount.increment();
+    statusCounts.computeIfAbsent(status, unused -> new LongAdder()).increment();
+    latency.record(latencyMicros);
+    datastoreLatency.record(datastoreMicros);
+  }
+
+  /**
+   * Returns a summary of this endpoint's requests, meant to be serialized with Gson
+   */
+  public Map<String, Object> toSummary() {
+    Map<String, Long> statuses = new TreeMap<>();
+    for(Map.Entry<Integer, LongAdder> statusCount : statusCounts.entrySet()) {
+      statuses.put(statusCount.getKey().toString(), statusCount.getValue().sum());
+    }
+    Map<String, Object> summary = new TreeMap<>();
+    summary.put("requests", requestCount.sum());
+    summary.put("statuses", statuses);
+    summary.put("latency", latency.toSummary());
+    summary.put("datastore-latency", datastoreLatency.toSummary());
+    return summary;
+  }
+}
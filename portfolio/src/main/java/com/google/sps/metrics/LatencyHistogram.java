@@ -0,0 +1,95 @@
+package com.google.sps.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock free histogram of latencies in microseconds with log linear buckets, in the style of HdrHistogram
+ * Each power of two is split into SUB_BUCKETS equal buckets, so percentiles are within 1 / SUB_BUCKETS of exact
+ */
+public class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+  private final AtomicLongArray bucketCounts = new AtomicLongArray(BUCKET_COUNT);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder totalMicros = new LongAdder();
+  private final LongAccumulator maxMicros = new LongAccumulator(Math::max, 0);
+
+  /**
+   * Records one latency, negative latencies are recorded as 0
+   */
+  public void record(long micros) {
+    micros = Math.max(micros, 0);
+    bucketCounts.incrementAndGet(bucketIndex(micros));
+    count.increment();
+    totalMicros.add(micros);
+    maxMicros.accumulate(micros);
+  }
+
+  public long getCount() {
+    return count.sum();
+  }
+
+  /**
+   * Returns the smallest latency, rounded down to its bucket, which at least percentile percent of latencies are at most
+   * Returns 0 if nothing was recorded
+   */
+  public long getPercentileMicros(double percentile) {
+    long total = getCount();
+    if(total == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+    long seen = 0;
+    for(int index = 0; index < BUCKET_COUNT; index++) {
+      seen += bucketCounts.get(index);
+      if(seen >= rank) {
+        return Math.min(bucketLowerBound(index), maxMicros.get());
+      }
+    }
+    return maxMicros.get();
+  }
+
+  /**
+   * Returns a summary of the recorded latencies in milliseconds, meant to be serialized with Gson
+   */
+  public Map<String, Object> toSummary() {
+    long total = getCount();
+    Map<String, Object> summary = new LinkedHashMap<>();
+    summary.put("count", total);
+    summary.put("mean-ms", total == 0 ? 0 : totalMicros.sum() / 1000.0 / total);
+    summary.put("p50-ms", getPercentileMicros(50) / 1000.0);
+    summary.put("p90-ms", getPercentileMicros(90) / 1000.0);
+    summary.put("p99-ms", getPercentileMicros(99) / 1000.0);
+    summary.put("max-ms", maxMicros.get() / 1000.0);
+    return summary;
+  }
+
+  /**
+   * Values below SUB_BUCKETS get their own bucket, larger values are bucketed by their highest
+   * SUB_BUCKET_BITS + 1 bits
+   */
+  private static int bucketIndex(long micros) {
+    if(micros < SUB_BUCKETS) {
+      return (int) micros;
+    }
+    int highestBit = 63 - Long.numberOfLeadingZeros(micros);
+    int shift = highestBit - SUB_BUCKET_BITS;
+    int subBucket = (int) (micros >>> shift) & (SUB_BUCKETS - 1);
+    return (shift + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  private static long bucketLowerBound(int index) {
+    if(index < SUB_BUCKETS) {
+      return index;
+    }
+    int shift = index / SUB_BUCKETS - 1;
+    long subBucket = index % SUB_BUCKETS;
+    return (SUB_BUCKETS + subBucket) << shift;
+  }
+}
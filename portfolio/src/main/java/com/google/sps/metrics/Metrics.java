@@ -0,0 +1,118 @@
+package com.google.sps.metrics;
+
+import com.google.appengine.api.datastore.DatastoreService;
+import com.google.appengine.api.datastore.PreparedQuery;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process wide request and Datastore metrics
+ * Requests are recorded per endpoint by the MetricsFilter, Datastore calls are recorded per method
+ *   and added to the Datastore time of the request running on the calling thread
+ */
+public class Metrics {
+  // Bounds memory used by requests to unknown paths, those are all recorded under OTHER_ENDPOINT
+  private static final int MAX_ENDPOINTS = 100;
+  private static final String OTHER_ENDPOINT = "other";
+
+  private static final Map<String, EndpointStats> endpointStats = new ConcurrentHashMap<>();
+  private static final Map<String, LatencyHistogram> datastoreCallLatency = new ConcurrentHashMap<>();
+  // Nanoseconds spent in Datastore calls by the request on this thread, null outside of requests
+  private static final ThreadLocal<long[]> requestDatastoreNanos = new ThreadLocal<>();
+
+  /**
+   * Starts counting Datastore time for a request running on this thread
+   */
+  public static void startRequest() {
+    requestDatastoreNanos.set(new long[1]);
+  }
+
+  /**
+   * Stops counting Datastore time for the request on this thread, returning the time counted in microseconds
+   */
+  public static long finishRequest() {
+    long[] datastoreNanos = requestDatastoreNanos.get();
+    requestDatastoreNanos.remove();
+    return datastoreNanos == null ? 0 : TimeUnit.NANOSECONDS.toMicros(datastoreNanos[0]);
+  }
+
+  /**
+   * Records a finished request to endpoint
+   */
+  public static void recordRequest(String endpoint, int status, long latencyMicros, long datastoreMicros) {
+    EndpointStats stats = endpointStats.get(endpoint);
+    if(stats == null) {
+      if(endpointStats.size() >= MAX_ENDPOINTS) {
+        endpoint = OTHER_ENDPOINT;
+      }
+      stats = endpointStats.computeIfAbsent(endpoint, unused -> new EndpointStats());
+    }
+    stats.record(status, latencyMicros, datastoreMicros);
+  }
+
+  /**
+   * Returns a DatastoreService which records the latency of every call made through it and through the
+   * PreparedQueries it prepares
+   * Time spent lazily fetching results while iterating a query is not recorded
+   */
+  public static DatastoreService timed(DatastoreService datastore) {
+    return timedProxy(DatastoreService.class, datastore);
+  }
+
+  /**
+   * Returns a summary of every recorded metric, meant to be serialized with Gson
+   */
+  public static Map<String, Object> toSummary() {
+    Map<String, Object> endpoints = new TreeMap<>();
+    for(Map.Entry<String, EndpointStats> stats : endpointStats.entrySet()) {
+      endpoints.put(stats.getKey(), stats.getValue().toSummary());
+    }
+    Map<String, Object> datastoreCalls = new TreeMap<>();
+    for(Map.Entry<String, LatencyHistogram> latency : datastoreCallLatency.entrySet()) {
+      datastoreCalls.put(latency.getKey(), latency.getValue().toSummary());
+    }
+    Map<String, Object> summary = new TreeMap<>();
+    summary.put("endpoints", endpoints);
+    summary.put("datastore-calls", datastoreCalls);
+    return summary;
+  }
+
+  private static void recordDatastoreCall(String method, long nanos) {
+    datastoreCallLatency.computeIfAbsent(method, unused -> new LatencyHistogram())
+        .record(TimeUnit.NANOSECONDS.toMicros(nanos));
+    long[] datastoreNanos = requestDatastoreNanos.get();
+    if(datastoreNanos != null) {
+      datastoreNanos[0] += nanos;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T timedProxy(Class<T> type, T target) {
+    String typeName = type.getSimpleName();
+    return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> {
+      if(method.getDeclaringClass() == Object.class) {
+        return method.invoke(target, args);
+      }
+      long startNanos = System.nanoTime();
+      Object result;
+      try {
+        result = method.invoke(target, args);
+      } catch (InvocationTargetException e) {
+        throw e.getCause();
+      } finally {
+        recordDatastoreCall(typeName + "." + method.getName(), System.nanoTime() - startNanos);
+      }
+      if(result instanceof PreparedQuery) {
+        return timedProxy(PreparedQuery.class, (PreparedQuery) result);
+      }
+      return result;
+    });
+  }
+
+  private Metrics() {
+  }
+}
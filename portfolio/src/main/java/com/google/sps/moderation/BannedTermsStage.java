@@ -0,0 +1,20 @@
+package com.google.sps.moderation;
+
+import com.google.sps.entities.Comment;
+
+/**
+ * Rejects Comments containing any banned term as a whole word, ignoring case
+ */
+public class BannedTermsStage implements ModerationStage {
+  private final TermMatcher matcher;
+
+  public BannedTermsStage(TermMatcher matcher) {
+    this.matcher = matcher;
+  }
+
+  @Override
+  public String check(Comment comment) {
+    String term = matcher.findFirst(comment.getCommentText());
+    return term == null ? null : "contains banned term " + term;
+  }
+}
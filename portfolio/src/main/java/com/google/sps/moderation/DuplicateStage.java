@@ -0,0 +1,51 @@
+package com.google.sps.moderation;
+
+import com.google.sps.entities.Comment;
+import com.google.sps.utils.ExpiringCache;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Locale;
+
+/**
+ * Rejects a Comment when its author had another Comment with the same text pass this stage within the last
+ *   windowMs, the same Comment passes again when its moderation is retried
+ * Texts are compared by a SHA-256 hash of the author and the text with case and runs of whitespace ignored,
+ *   so only a hash per recent Comment is kept, only Comments moderated by this instance are compared
+ */
+public class DuplicateStage implements ModerationStage {
+  private final ExpiringCache<String, Long> recentHashes;
+
+  public DuplicateStage(int maxRecentComments, long windowMs) {
+    recentHashes = new ExpiringCache<>(maxRecentComments, windowMs);
+  }
+
+  @Override
+  public String check(Comment comment) {
+    String hash = contentHash(comment);
+    // Checking and recording the hash together stops two identical Comments moderated at once both passing
+    synchronized (recentHashes) {
+      Long recentCommentId = recentHashes.get(hash);
+      if(recentCommentId != null && !recentCommentId.equals(comment.getId())) {
+        return "duplicate of a recent comment";
+      }
+      recentHashes.put(hash, comment.getId());
+    }
+    return null;
+  }
+
+  private static String contentHash(Comment comment) {
+    String normalizedText = comment.getCommentText().trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      digest.update(String.valueOf(comment.getAuthorId()).getBytes(StandardCharsets.UTF_8));
+      digest.update((byte) 0);
+      digest.update(normalizedText.getBytes(StandardCharsets.UTF_8));
+      return Base64.getEncoder().encodeToString(digest.digest());
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform is required to support SHA-256
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,28 @@
+package com.google.sps.moderation;
+
+import com.google.sps.entities.Comment;
+
+/**
+ * Rejects Comments whose text, ignoring surrounding whitespace, is shorter than minLength or longer than maxLength
+ */
+public class LengthStage implements ModerationStage {
+  private final int minLength;
+  private final int maxLength;
+
+  public LengthStage(int minLength, int maxLength) {
+    this.minLength = minLength;
+    this.maxLength = maxLength;
+  }
+
+  @Override
+  public String check(Comment comment) {
+    int length = comment.getCommentText().trim().length();
+    if(length < minLength) {
+      return "shorter than " + minLength + " characters";
+    }
+    if(length > maxLength) {
+      return "longer than " + maxLength + " characters";
+    }
+    return null;
+  }
+}
@@ -0,0 +1,132 @@
+package com.google.sps.moderation;
+
+import com.google.sps.entities.Comment;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs stored pending Comments through every ModerationStage in order on a pool of worker threads,
+ *   off the thread which posted them
+ * A Comment passing every stage is given to onApproved, a Comment failing a stage is given to onRejected
+ *   and later stages are skipped, so cheap stages should come first
+ * If a stage throws, the Comment is moderated again after a growing delay, after MAX_STAGE_ATTEMPTS it is logged
+ *   and left pending until it is submitted again, as a failure to moderate never rejects a Comment
+ * If a callback throws, the Comment is logged and left pending until it is submitted again
+ * A Comment already being moderated is not moderated twice when submitted again
+ */
+public class ModerationPipeline {
+  private static final Logger logger = Logger.getLogger(ModerationPipeline.class.getName());
+  private static final int MAX_STAGE_ATTEMPTS = 3;
+  private static final long STAGE_RETRY_DELAY_MS = 1000;
+
+  private final List<ModerationStage> stages;
+  private final Consumer<List<Comment>> onApproved;
+  private final Consumer<List<Comment>> onRejected;
+  private final ScheduledThreadPoolExecutor workers;
+  private final Set<Long> moderatingIds = ConcurrentHashMap.newKeySet();
+
+  public ModerationPipeline(List<ModerationStage> stages, int workerCount,
+      Consumer<List<Comment>> onApproved, Consumer<List<Comment>> onRejected) {
+    this.stages = stages;
+    this.onApproved = onApproved;
+    this.onRejected = onRejected;
+    workers = new ScheduledThreadPoolExecutor(workerCount, runnable -> {
+      Thread thread = new Thread(runnable, "comment-moderation");
+      thread.setDaemon(true);
+      return thread;
+    });
+    // Comments waiting to be retried stay pending when closed, rather than holding up shutdown
+    workers.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+  }
+
+  /**
+   * Moderates comment in the background, returns immediately
+   * Returns false if the pipeline is closed, then comment stays pending
+   */
+  public boolean submit(Comment comment) {
+    if(!moderatingIds.add(comment.getId())) {
+      return true;
+    }
+    try {
+      workers.execute(() -> moderate(comment, 1));
+      return true;
+    } catch (RejectedExecutionException e) {
+      moderatingIds.remove(comment.getId());
+      logger.warning("Moderation is closed, comment " + comment.getId() + " stays pending");
+      return false;
+    }
+  }
+
+  /**
+   * Stops accepting Comments and waits up to timeoutMs for Comments already submitted to be moderated
+   */
+  public void close(long timeoutMs) throws InterruptedException {
+    workers.shutdown();
+    workers.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS);
+  }
+
+  private void moderate(Comment comment, int attempt) {
+    String rejection;
+    try {
+      rejection = check(comment);
+    } catch (RuntimeException e) {
+      if(attempt < MAX_STAGE_ATTEMPTS) {
+        logger.log(Level.WARNING, "Failed to moderate comment " + comment.getId() + ", retrying", e);
+        retry(comment, attempt);
+        return;
+      }
+      logger.log(Level.SEVERE, "Failed to moderate comment " + comment.getId() + " " + attempt
+          + " times, it stays pending", e);
+      moderatingIds.remove(comment.getId());
+      return;
+    }
+    try {
+      if(rejection != null) {
+        logger.info("Rejected comment " + comment.getId() + " by " + comment.getAuthorId() + ": " + rejection);
+        onRejected.accept(Collections.singletonList(comment));
+      } else {
+        onApproved.accept(Collections.singletonList(comment));
+      }
+    } catch (RuntimeException e) {
+      logger.log(Level.SEVERE, "Failed to store the moderation of comment " + comment.getId()
+          + ", it stays pending", e);
+    } finally {
+      moderatingIds.remove(comment.getId());
+    }
+  }
+
+  /**
+   * Returns the first rejection of comment by a stage, null if every stage passes it
+   */
+  private String check(Comment comment) {
+    for (ModerationStage stage : stages) {
+      String rejection = stage.check(comment);
+      if(rejection != null) {
+        return rejection;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Schedules comment to be moderated again, doubling the delay after each attempt
+   * If the pipeline is closed, comment stays pending
+   */
+  private void retry(Comment comment, int attempt) {
+    try {
+      workers.schedule(() -> moderate(comment, attempt + 1),
+          STAGE_RETRY_DELAY_MS << (attempt - 1), TimeUnit.MILLISECONDS);
+    } catch (RejectedExecutionException e) {
+      moderatingIds.remove(comment.getId());
+      logger.warning("Moderation is closed, comment " + comment.getId() + " stays pending");
+    }
+  }
+}
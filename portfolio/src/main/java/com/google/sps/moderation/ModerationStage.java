@@ -0,0 +1,14 @@
+package com.google.sps.moderation;
+
+import com.google.sps.entities.Comment;
+
+/**
+ * One check of the ModerationPipeline, stages must be thread safe as Comments are moderated concurrently
+ */
+public interface ModerationStage {
+
+  /**
+   * Returns why comment is rejected, or null if comment passes this stage
+   */
+  String check(Comment comment);
+}
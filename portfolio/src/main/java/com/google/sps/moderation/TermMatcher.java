@@ -0,0 +1,115 @@
+package com.google.sps.moderation;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Aho-Corasick automaton finding any of a fixed set of terms in a text with one pass over the text,
+ *   however many terms there are
+ * Terms and texts are compared ignoring case, a term only matches as a whole word, that is when the characters
+ *   either side of it are not letters or digits
+ * Immutable once built, so one TermMatcher can be shared by every thread
+ */
+public class TermMatcher {
+  private static final int ROOT = 0;
+
+  // Trie edges of each state, then the failure link of each state to the state for its longest proper suffix
+  private final List<Map<Character, Integer>> edges = new ArrayList<>();
+  private final List<Integer> failures = new ArrayList<>();
+  // Terms ending at each state, including those ending at states reached through failure links
+  private final List<List<String>> outputs = new ArrayList<>();
+
+  public TermMatcher(Collection<String> terms) {
+    addState();
+    for (String term : terms) {
+      String normalizedTerm = term.trim().toLowerCase(Locale.ROOT);
+      if(!normalizedTerm.isEmpty()) {
+        addTerm(normalizedTerm);
+      }
+    }
+    buildFailures();
+  }
+
+  /**
+   * Returns the first term found in text as a whole word, or null if text contains no term
+   */
+  public String findFirst(String text) {
+    String normalizedText = text.toLowerCase(Locale.ROOT);
+    int state = ROOT;
+    for (int end = 0; end < normalizedText.length(); end++) {
+      state = step(state, normalizedText.charAt(end));
+      for (String term : outputs.get(state)) {
+        int start = end + 1 - term.length();
+        if(isBoundary(normalizedText, start - 1) && isBoundary(normalizedText, end + 1)) {
+          return term;
+        }
+      }
+    }
+    return null;
+  }
+
+  private void addTerm(String term) {
+    int state = ROOT;
+    for (char c : term.toCharArray()) {
+      Integer next = edges.get(state).get(c);
+      if(next == null) {
+        next = addState();
+        edges.get(state).put(c, next);
+      }
+      state = next;
+    }
+    outputs.get(state).add(term);
+  }
+
+  /**
+   * Sets the failure link and full outputs of every state breadth first, so a state's failure is always
+   *   finished before the state itself
+   */
+  private void buildFailures() {
+    Queue<Integer> states = new ArrayDeque<>();
+    for (int child : edges.get(ROOT).values()) {
+      failures.set(child, ROOT);
+      states.add(child);
+    }
+    while (!states.isEmpty()) {
+      int state = states.remove();
+      for (Map.Entry<Character, Integer> edge : edges.get(state).entrySet()) {
+        int child = edge.getValue();
+        int failure = step(failures.get(state), edge.getKey());
+        failures.set(child, failure);
+        outputs.get(child).addAll(outputs.get(failure));
+        states.add(child);
+      }
+    }
+  }
+
+  private int step(int state, char c) {
+    while (true) {
+      Integer next = edges.get(state).get(c);
+      if(next != null) {
+        return next;
+      }
+      if(state == ROOT) {
+        return ROOT;
+      }
+      state = failures.get(state);
+    }
+  }
+
+  private int addState() {
+    edges.add(new HashMap<>());
+    failures.add(ROOT);
+    outputs.add(new ArrayList<>());
+    return edges.size() - 1;
+  }
+
+  private static boolean isBoundary(String text, int index) {
+    return index < 0 || index >= text.length() || !Character.isLetterOrDigit(text.charAt(index));
+  }
+}
@@ -0,0 +1,232 @@
+package com.google.sps.search;
+
+import com.google.sps.entities.Comment;
+import com.google.sps.storage.CommentPage;
+import com.google.sps.storage.CommentStore;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * In process inverted index from the terms of Comment texts to the Comments containing them
+ * Each term's posting list is a concurrent skip list of Comment ids ordered newest first, so searches
+ *   intersect posting lists and stop as soon as enough of the newest matches are found
+ * The index is kept by each instance, it must be replaced by a shared index before the Comment kind gets large
+ * The first search starts a background thread which indexes every Comment in the CommentStore, then every
+ *   refreshIntervalMs indexes Comments made visible since, including those made visible on other instances
+ * Searches made before the first scan finishes only see the Comments indexed so far
+ * Removed Comment ids are kept as tombstones which searches skip, once PRUNE_THRESHOLD of them are kept
+ *   their postings are pruned from every posting list in the background and the tombstones dropped
+ */
+public class CommentSearchIndex {
+  private static final Logger logger = Logger.getLogger(CommentSearchIndex.class.getName());
+  private static final int SCAN_PAGE_SIZE = 1000;
+  // Datastore queries may see newly visible Comments late, so each refresh rereads this far behind the newest
+  private static final long REFRESH_OVERLAP_MS = 60 * 1000;
+  private static final int PRUNE_THRESHOLD = 1000;
+
+  private final CommentStore commentStore;
+  private final long refreshIntervalMs;
+  private final AtomicBoolean started = new AtomicBoolean();
+  private final AtomicBoolean pruneScheduled = new AtomicBoolean();
+  private final ScheduledExecutorService indexer;
+  private volatile Map<String, NavigableSet<Posting>> postingLists = new ConcurrentHashMap<>();
+  private volatile Set<Long> removedIds = ConcurrentHashMap.newKeySet();
+  // Only read and written on the indexer thread
+  private long newestIndexedMs = 0;
+
+  public CommentSearchIndex(CommentStore commentStore, long refreshIntervalMs) {
+    this.commentStore = commentStore;
+    this.refreshIntervalMs = refreshIntervalMs;
+    indexer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "comment-search-indexer");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Indexes a newly visible Comment
+   */
+  public void add(Comment comment) {
+    add(postingLists, comment);
+  }
+
+  /**
+   * Stops the Comment with the given id being found by searches
+   */
+  public void remove(long commentId) {
+    Set<Long> removedIds = this.removedIds;
+    removedIds.add(commentId);
+    if(removedIds.size() >= PRUNE_THRESHOLD && pruneScheduled.compareAndSet(false, true)) {
+      indexer.execute(this::prune);
+    }
+  }
+
+  /**
+   * Returns the ids of the newest Comments containing every term of query, at most limit ids newest first
+   * A query without terms matches nothing
+   */
+  public List<Long> search(String query, int limit) {
+    if(started.compareAndSet(false, true)) {
+      indexer.scheduleWithFixedDelay(this::refresh, 0, refreshIntervalMs, TimeUnit.MILLISECONDS);
+    }
+    Map<String, NavigableSet<Posting>> postingLists = this.postingLists;
+    Set<Long> removedIds = this.removedIds;
+    Set<String> terms = new LinkedHashSet<>(Tokenizer.tokenize(query));
+    if(terms.isEmpty()) {
+      return Collections.emptyList();
+    }
+    List<NavigableSet<Posting>> termPostings = new ArrayList<>(terms.size());
+    for(String term : terms) {
+      NavigableSet<Posting> postings = postingLists.get(term);
+      if(postings == null) {
+        return Collections.emptyList();
+      }
+      termPostings.add(postings);
+    }
+    // Walking the shortest posting list and probing the others keeps the intersection cheap
+    termPostings.sort(Comparator.comparingInt(Set::size));
+
+    List<Long> commentIds = new ArrayList<>();
+    Iterator<Posting> candidates = termPostings.get(0).iterator();
+    while (commentIds.size() < limit && candidates.hasNext()) {
+      Posting candidate = candidates.next();
+      boolean inEveryList = !removedIds.contains(candidate.commentId);
+      for(int i = 1; i < termPostings.size() && inEveryList; i++) {
+        inEveryList = termPostings.get(i).contains(candidate);
+      }
+      if(inEveryList) {
+        commentIds.add(candidate.commentId);
+      }
+    }
+    return commentIds;
+  }
+
+  /**
+   * Indexes every Comment in the CommentStore again in the background, replacing the index and its tombstones
+   *   once done, does nothing before the first search as the first scan reads every Comment anyway
+   */
+  public void rebuild() {
+    if(!started.get()) {
+      return;
+    }
+    indexer.execute(() -> {
+      try {
+        Map<String, NavigableSet<Posting>> rebuiltPostingLists = new ConcurrentHashMap<>();
+        long newestMs = scan(rebuiltPostingLists, 0);
+        postingLists = rebuiltPostingLists;
+        removedIds = ConcurrentHashMap.newKeySet();
+        newestIndexedMs = newestMs;
+      } catch (RuntimeException e) {
+        logger.log(Level.WARNING, "Failed to rebuild the comment search index", e);
+      }
+    });
+  }
+
+  /**
+   * Indexes Comments which became visible since shortly before the newest Comment already indexed
+   * Adding an indexed Comment again changes nothing, so rereading the overlap is harmless
+   */
+  private void refresh() {
+    try {
+      newestIndexedMs = Math.max(newestIndexedMs,
+          scan(postingLists, Math.max(newestIndexedMs - REFRESH_OVERLAP_MS, 0)));
+    } catch (RuntimeException e) {
+      logger.log(Level.WARNING, "Failed to refresh the comment search index", e);
+    }
+  }
+
+  /**
+   * Removes the postings of every tombstoned Comment, dropping emptied posting lists, then drops the tombstones
+   */
+  private void prune() {
+    pruneScheduled.set(false);
+    Set<Long> removedIds = this.removedIds;
+    Set<Long> prunedIds = new HashSet<>(removedIds);
+    Map<String, NavigableSet<Posting>> postingLists = this.postingLists;
+    for (String term : postingLists.keySet()) {
+      // Runs under the term's lock so a concurrent add never puts a posting in a dropped list
+      postingLists.computeIfPresent(term, (unused, postings) -> {
+        postings.removeIf(posting -> prunedIds.contains(posting.commentId));
+        return postings.isEmpty() ? null : postings;
+      });
+    }
+    removedIds.removeAll(prunedIds);
+  }
+
+  /**
+   * Indexes every Comment visible from startMs on into postingLists, returning the newest visibleMs indexed
+   */
+  private long scan(Map<String, NavigableSet<Posting>> postingLists, long startMs) {
+    long newestMs = startMs;
+    String cursor = null;
+    do {
+      CommentPage page = commentStore.getRange(startMs, Long.MAX_VALUE, SCAN_PAGE_SIZE, cursor);
+      while (page.hasNext()) {
+        Comment comment = page.next();
+        add(postingLists, comment);
+        newestMs = Math.max(newestMs, comment.getVisibleMs());
+      }
+      cursor = page.getNextCursor();
+    } while (cursor != null);
+    return newestMs;
+  }
+
+  private static void add(Map<String, NavigableSet<Posting>> postingLists, Comment comment) {
+    Posting posting = new Posting(comment.getVisibleMs(), comment.getId());
+    for(String term : Tokenizer.tokenize(comment.getCommentText())) {
+      postingLists.compute(term, (unused, postings) -> {
+        if(postings == null) {
+          postings = new ConcurrentSkipListSet<>();
+        }
+        postings.add(posting);
+        return postings;
+      });
+    }
+  }
+
+  /**
+   * Posting list entry, ordered newest Comment first
+   */
+  private static class Posting implements Comparable<Posting> {
+    private final long visibleMs;
+    private final long commentId;
+
+    private Posting(long visibleMs, long commentId) {
+      this.visibleMs = visibleMs;
+      this.commentId = commentId;
+    }
+
+    @Override
+    public int compareTo(Posting other) {
+      int recencyOrder = Long.compare(other.visibleMs, visibleMs);
+      return recencyOrder != 0 ? recencyOrder : Long.compare(other.commentId, commentId);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof Posting && compareTo((Posting) other) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+      return Long.hashCode(visibleMs) ^ Long.hashCode(commentId);
+    }
+  }
+}
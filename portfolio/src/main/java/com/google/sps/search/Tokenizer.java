@@ -0,0 +1,38 @@
+package com.google.sps.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Splits text into lower case search terms, a term is a run of letters and digits
+ */
+public class Tokenizer {
+  // Longer runs are truncated so one huge word can't make a huge term
+  private static final int MAX_TERM_LENGTH = 64;
+
+  /**
+   * Returns the terms of text in order, with duplicates, an empty list for null text
+   */
+  public static List<String> tokenize(String text) {
+    List<String> terms = new ArrayList<>();
+    if(text == null) {
+      return terms;
+    }
+    int termStart = -1;
+    for(int i = 0; i <= text.length(); i++) {
+      boolean inTerm = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+      if(inTerm && termStart < 0) {
+        termStart = i;
+      } else if(!inTerm && termStart >= 0) {
+        String term = text.substring(termStart, Math.min(i, termStart + MAX_TERM_LENGTH));
+        terms.add(term.toLowerCase(Locale.ROOT));
+        termStart = -1;
+      }
+    }
+    return terms;
+  }
+
+  private Tokenizer() {
+  }
+}
@@ -0,0 +1,109 @@
+package com.google.sps.servlets;
+
+import com.google.appengine.api.datastore.DatastoreServiceFactory;
+import com.google.appengine.api.users.UserService;
+import com.google.appengine.api.users.UserServiceFactory;
+import com.google.sps.metrics.Metrics;
+import com.google.sps.storage.EntityArchive;
+import com.google.sps.utils.Requests;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Lets application admins back up and restore the Comment and User kinds as newline delimited Json
+ */
+@WebServlet("/admin/archive")
+public class AdminArchiveServlet extends HttpServlet {
+  private static final UserService userService = UserServiceFactory.getUserService();
+  private static final EntityArchive archive =
+      new EntityArchive(Metrics.timed(DatastoreServiceFactory.getDatastoreService()));
+  private static final int DEFAULT_PARALLELISM = 4;
+  private static final int MAX_PARALLELISM = 16;
+
+  /**
+   * Streams every Comment and User Entity as newline delimited Json
+   * kind parameter limits the export to one kind
+   * If the user is not a logged in admin, return a HTTP 403 error code
+   * If kind is not an archived kind, return a HTTP 400 error code
+   */
+  @Override
+  public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    if(!isAdmin()) {
+      response.setStatus(403);
+      return;
+    }
+    List<String> kinds = EntityArchive.KINDS;
+    if(Requests.hasParameter(request, "kind")) {
+      String kind = Requests.getParameter(request, "kind", null);
+      if(!EntityArchive.KINDS.contains(kind)) {
+        response.setStatus(400);
+        return;
+      }
+      kinds = Collections.singletonList(kind);
+    }
+    response.setContentType("application/x-ndjson;");
+    response.setCharacterEncoding("UTF-8");
+    Writer out = response.getWriter();
+    for (String kind : kinds) {
+      archive.export(kind, out);
+    }
+  }
+
+  /**
+   * Imports the newline delimited Json request body, which may be gzip compressed, as written by doGet
+   * parallelism parameter sets how many batches are put at once, defaulting to DEFAULT_PARALLELISM
+   * Gives response containing a Json object with the number of imported Entities
+   * If the user is not a logged in admin, return a HTTP 403 error code
+   * If parallelism is not an integer between 1 and MAX_PARALLELISM or a line is not an archived Entity,
+   *   return a HTTP 400 error code, Entities on earlier lines may already be imported
+   */
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    if(!isAdmin()) {
+      response.setStatus(403);
+      return;
+    }
+    int parallelism;
+    try {
+      parallelism = Requests.getIntParameter(request, "parallelism", DEFAULT_PARALLELISM);
+    } catch (NumberFormatException e) {
+      response.setStatus(400);
+      return;
+    }
+    if(parallelism < 1 || parallelism > MAX_PARALLELISM) {
+      response.setStatus(400);
+      return;
+    }
+
+    InputStream body = request.getInputStream();
+    if("gzip".equalsIgnoreCase(request.getHeader("Content-Encoding"))) {
+      body = new GZIPInputStream(body);
+    }
+    long importedCount;
+    try (Reader in = new InputStreamReader(body, StandardCharsets.UTF_8)) {
+      importedCount = archive.importFrom(in, parallelism);
+    } catch (IllegalArgumentException e) {
+      response.sendError(400, e.getMessage());
+      return;
+    } finally {
+      DataServlet.onEntitiesImported();
+    }
+    response.setContentType("application/json;");
+    response.getWriter().println("{\"imported\":" + importedCount + "}");
+  }
+
+  private static boolean isAdmin() {
+    return userService.isUserLoggedIn() && userService.isUserAdmin();
+  }
+}
@@ -0,0 +1,46 @@
+package com.google.sps.servlets;
+
+import com.google.appengine.api.users.UserService;
+import com.google.appengine.api.users.UserServiceFactory;
+import com.google.sps.metrics.Metrics;
+import com.google.sps.utils.ExpiringCache;
+import com.google.sps.utils.Json;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Sends this instance's request, Datastore and cache metrics as JSON to application admins
+ */
+@WebServlet("/admin/stats")
+public class AdminStatsServlet extends HttpServlet {
+  private static final UserService userService = UserServiceFactory.getUserService();
+
+  /**
+   * Sends JSON with per endpoint request counts, status codes and latencies, per method Datastore call latencies
+   *   user cache hit and miss counts and the number of comment stream clients
+   * If the user is not a logged in admin, return a HTTP 403 error code
+   */
+  @Override
+  public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    if(!userService.isUserLoggedIn() || !userService.isUserAdmin()) {
+      response.setStatus(403);
+      return;
+    }
+    ExpiringCache<String, ?> userCache = UserInformationServlet.getUserCache();
+    Map<String, Object> userCacheStats = new LinkedHashMap<>();
+    userCacheStats.put("hits", userCache.getHitCount());
+    userCacheStats.put("misses", userCache.getMissCount());
+    userCacheStats.put("size", userCache.size());
+
+    Map<String, Object> stats = Metrics.toSummary();
+    stats.put("user-cache", userCacheStats);
+    stats.put("comment-stream-clients", CommentStreamServlet.getClientCount());
+    response.setContentType("application/json;");
+    response.getWriter().println(Json.getGson().toJson(stats));
+  }
+}
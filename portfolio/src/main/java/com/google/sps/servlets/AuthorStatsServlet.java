@@ -0,0 +1,107 @@
+package com.google.sps.servlets;
+
+import com.google.appengine.api.datastore.Entity;
+import com.google.gson.stream.JsonWriter;
+import com.google.sps.storage.AuthorCount;
+import com.google.sps.utils.Requests;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Sends the precomputed number of Comments written by the most active authors
+ */
+@WebServlet("/data/authors")
+public class AuthorStatsServlet extends HttpServlet {
+  private static final int DEFAULT_LIMIT = 10;
+  private static final int MAX_LIMIT = 100;
+  // Most authors read while looking for limit authors with display names
+  private static final int MAX_CANDIDATES = 1000;
+
+  /**
+   * Gives response containing a Json object with an authors list of objects with an authorName and commentCount,
+   *   sorted from most to fewest Comments
+   * limit parameter sets the maximum number of authors sent, defaulting to DEFAULT_LIMIT
+   * Authors without a display name are left out, further authors are sent in their place
+   * id parameter instead gives a single object with the authorName and commentCount of the author with that user id
+   * If limit is not an integer between 1 and MAX_LIMIT, return a HTTP 400 error code
+   * If the author with the given id has no User Information, return a HTTP 404 error code
+   */
+  @Override
+  public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    String authorId = Requests.getParameter(request, "id", null);
+    if(authorId != null) {
+      sendAuthor(authorId, response);
+      return;
+    }
+    int limit;
+    try {
+      limit = Requests.getIntParameter(request, "limit", DEFAULT_LIMIT);
+    } catch (NumberFormatException e) {
+      response.setStatus(400);
+      return;
+    }
+    if(limit < 1 || limit > MAX_LIMIT) {
+      response.setStatus(400);
+      return;
+    }
+
+    // Read once, then walked a batch of users at a time until limit authors with display names are found
+    List<AuthorCount> topAuthors = DataServlet.getAuthorCommentCounts().getTopAuthors(MAX_CANDIDATES);
+    List<AuthorCount> namedAuthors = new ArrayList<>(limit);
+    List<String> authorNames = new ArrayList<>(limit);
+    for (int start = 0; start < topAuthors.size() && namedAuthors.size() < limit; start += limit) {
+      List<AuthorCount> candidates = topAuthors.subList(start, Math.min(start + limit, topAuthors.size()));
+      List<String> authorIds = new ArrayList<>(candidates.size());
+      for (AuthorCount author : candidates) {
+        authorIds.add(author.getAuthorId());
+      }
+      Map<String, Entity> authors = UserInformationServlet.getUserEntities(authorIds);
+      for (AuthorCount author : candidates) {
+        Entity authorEn = authors.get(author.getAuthorId());
+        if(authorEn == null || authorEn.getProperty("display-name") == null) {
+          continue;
+        }
+        namedAuthors.add(author);
+        authorNames.add((String) authorEn.getProperty("display-name"));
+        if(namedAuthors.size() == limit) {
+          break;
+        }
+      }
+    }
+
+    response.setContentType("application/json;");
+    JsonWriter writer = new JsonWriter(response.getWriter());
+    writer.beginObject();
+    writer.name("authors").beginArray();
+    for (int i = 0; i < namedAuthors.size(); i++) {
+      writer.beginObject();
+      writer.name("authorName").value(authorNames.get(i));
+      writer.name("commentCount").value(namedAuthors.get(i).getCommentCount());
+      writer.endObject();
+    }
+    writer.endArray();
+    writer.endObject();
+    writer.flush();
+  }
+
+  private static void sendAuthor(String authorId, HttpServletResponse response) throws IOException {
+    Entity authorEn = UserInformationServlet.getUserEntity(authorId);
+    if(authorEn == null) {
+      response.setStatus(404);
+      return;
+    }
+    response.setContentType("application/json;");
+    JsonWriter writer = new JsonWriter(response.getWriter());
+    writer.beginObject();
+    writer.name("authorName").value((String) authorEn.getProperty("display-name"));
+    writer.name("commentCount").value(DataServlet.getAuthorCommentCounts().getCount(authorId));
+    writer.endObject();
+    writer.flush();
+  }
+}
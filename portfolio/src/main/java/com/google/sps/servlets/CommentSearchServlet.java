@@ -0,0 +1,87 @@
+package com.google.sps.servlets;
+
+import com.google.gson.stream.JsonWriter;
+import com.google.sps.entities.Comment;
+import com.google.sps.search.CommentSearchIndex;
+import com.google.sps.utils.Json;
+import com.google.sps.utils.Requests;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Searches the text of the Comments stored by the DataServlet
+ */
+@WebServlet("/data/search")
+public class CommentSearchServlet extends HttpServlet {
+  private static final int DEFAULT_LIMIT = 20;
+  private static final int MAX_LIMIT = 100;
+  private static final int MAX_SEARCH_ATTEMPTS = 3;
+
+  /**
+   * Gives response containing a Json object with a comments list of the newest Comments containing every word of
+   *   the q parameter, sorted from newest to oldest
+   * limit parameter sets the maximum number of comments sent, defaulting to DEFAULT_LIMIT
+   * If q is missing or limit is not an integer between 1 and MAX_LIMIT, return a HTTP 400 error code
+   */
+  @Override
+  public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    String query = Requests.getParameter(request, "q", null);
+    int limit;
+    try {
+      limit = Requests.getIntParameter(request, "limit", DEFAULT_LIMIT);
+    } catch (NumberFormatException e) {
+      response.setStatus(400);
+      return;
+    }
+    if(query == null || limit < 1 || limit > MAX_LIMIT) {
+      response.setStatus(400);
+      return;
+    }
+
+    List<Comment> comments = DataServlet.withAuthorNames(search(query, limit));
+
+    response.setContentType("application/json;");
+    JsonWriter writer = new JsonWriter(response.getWriter());
+    writer.beginObject();
+    writer.name("comments").beginArray();
+    for (Comment comment : comments) {
+      Json.getCommentAdapter().write(writer, comment);
+    }
+    writer.endArray();
+    writer.endObject();
+    writer.flush();
+  }
+
+  /**
+   * Returns the Comments found by the search index, removing ids of Comments no longer stored from the index and
+   *   searching again so up to limit Comments are still returned
+   */
+  private static List<Comment> search(String query, int limit) {
+    CommentSearchIndex searchIndex = DataServlet.getSearchIndex();
+    List<Comment> comments = Collections.emptyList();
+    for (int attempt = 0; attempt < MAX_SEARCH_ATTEMPTS; attempt++) {
+      List<Long> commentIds = searchIndex.search(query, limit);
+      comments = DataServlet.getCommentStore().getByIds(commentIds);
+      if(comments.size() == commentIds.size()) {
+        break;
+      }
+      Set<Long> storedIds = new HashSet<>();
+      for (Comment comment : comments) {
+        storedIds.add(comment.getId());
+      }
+      for (long commentId : commentIds) {
+        if(!storedIds.contains(commentId)) {
+          searchIndex.remove(commentId);
+        }
+      }
+    }
+    return comments;
+  }
+}
@@ -0,0 +1,151 @@
+package com.google.sps.servlets;
+
+import com.google.sps.entities.Comment;
+import com.google.sps.utils.Broadcaster;
+import com.google.sps.utils.Json;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Pushes each new Comment accepted by the DataServlet to connected clients as Server-Sent Events
+ * Comments are fanned out in process, slow clients are disconnected instead of stalling the poster
+ */
+@WebServlet(urlPatterns = "/data/stream", asyncSupported = true)
+public class CommentStreamServlet extends HttpServlet {
+  private static final int SUBSCRIBER_QUEUE_SIZE = 64;
+  // Kept below the App Engine request deadline, EventSource clients reconnect when the stream ends
+  private static final long STREAM_TIMEOUT_MS = 50 * 1000;
+  private static final long CLIENT_RETRY_MS = 1000;
+  private static final Broadcaster<Comment> broadcaster = new Broadcaster<>(SUBSCRIBER_QUEUE_SIZE);
+
+  /**
+   * Holds the request open as a text/event-stream, sending one message event with a Json Comment
+   * for every Comment published while the stream is open
+   */
+  @Override
+  public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    response.setContentType("text/event-stream");
+    response.setCharacterEncoding("UTF-8");
+    response.setHeader("Cache-Control", "no-cache");
+
+    AsyncContext asyncContext = request.startAsync();
+    asyncContext.setTimeout(STREAM_TIMEOUT_MS);
+    CommentEventStream eventStream = new CommentEventStream(asyncContext, response.getOutputStream());
+    asyncContext.addListener(eventStream);
+    response.getOutputStream().setWriteListener(eventStream);
+  }
+
+  /**
+   * Returns the number of clients currently connected to the stream
+   */
+  static int getClientCount() {
+    return broadcaster.getSubscriptionCount();
+  }
+
+  /**
+   * Sends comment to every connected client
+   */
+  public static void publish(Comment comment) {
+    broadcaster.publish(comment);
+  }
+
+  /**
+   * Writes the Comments of one Subscription to one client using non-blocking IO
+   * Comments are only written while the output stream is ready so no thread ever blocks on a slow client
+   */
+  private static class CommentEventStream implements WriteListener, AsyncListener {
+    private final AsyncContext asyncContext;
+    private final ServletOutputStream outputStream;
+    private final Broadcaster.Subscription<Comment> subscription;
+    private boolean started = false;
+    private boolean closed = false;
+
+    private CommentEventStream(AsyncContext asyncContext, ServletOutputStream outputStream) {
+      this.asyncContext = asyncContext;
+      this.outputStream = outputStream;
+      this.subscription = broadcaster.subscribe(this::writeQueuedComments);
+    }
+
+    /**
+     * Writes as many queued Comments as the output stream accepts without blocking
+     * Nothing is written until the container first reports the stream writable, so the stream is non-blocking
+     * Ends the stream if the Subscription was dropped
+     */
+    private synchronized void writeQueuedComments() {
+      if(closed || !started) {
+        return;
+      }
+      if(subscription.isDropped()) {
+        close();
+        return;
+      }
+      try {
+        while (outputStream.isReady()) {
+          Comment comment = subscription.poll();
+          if(comment == null) {
+            outputStream.flush();
+            return;
+          }
+          write("id: " + comment.getVisibleMs() + "\ndata: " + Json.getCommentAdapter().toJson(comment) + "\n\n");
+        }
+      } catch (IOException e) {
+        close();
+      }
+    }
+
+    private void write(String event) throws IOException {
+      outputStream.write(event.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private synchronized void close() {
+      if(!closed) {
+        closed = true;
+        subscription.cancel();
+        asyncContext.complete();
+      }
+    }
+
+    @Override
+    public synchronized void onWritePossible() throws IOException {
+      if(!started) {
+        started = true;
+        write("retry: " + CLIENT_RETRY_MS + "\n\n");
+      }
+      writeQueuedComments();
+    }
+
+    @Override
+    public void onError(Throwable t) {
+      close();
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+      close();
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+      close();
+    }
+
+    @Override
+    public synchronized void onComplete(AsyncEvent event) {
+      closed = true;
+      subscription.cancel();
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+    }
+  }
+}
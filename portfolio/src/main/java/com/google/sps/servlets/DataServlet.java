@@ -14,88 +14,538 @@
 
 package com.google.sps.servlets;
 
-import com.google.appengine.api.datastore.DatastoreService;
 import com.google.appengine.api.datastore.DatastoreServiceFactory;
 import com.google.appengine.api.datastore.Entity;
-import com.google.appengine.api.datastore.PreparedQuery;
-import com.google.appengine.api.datastore.Query;
-import com.google.appengine.api.datastore.Query.SortDirection;
 import com.google.appengine.api.users.UserService;
 import com.google.appengine.api.users.UserServiceFactory;
-import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
 import com.google.sps.entities.Comment;
+import com.google.sps.metrics.Metrics;
+import com.google.sps.moderation.BannedTermsStage;
+import com.google.sps.moderation.DuplicateStage;
+import com.google.sps.moderation.LengthStage;
+import com.google.sps.moderation.ModerationPipeline;
+import com.google.sps.moderation.ModerationStage;
+import com.google.sps.moderation.TermMatcher;
+import com.google.sps.search.CommentSearchIndex;
+import com.google.sps.storage.AuthorCommentCounts;
+import com.google.sps.storage.CommentPage;
+import com.google.sps.storage.CommentStore;
+import com.google.sps.storage.DatastoreAuthorCommentCounts;
+import com.google.sps.storage.DatastoreCommentStore;
+import com.google.sps.storage.DatastoreFeedVersionStore;
+import com.google.sps.storage.FeedVersionStore;
+import com.google.sps.storage.InMemoryAuthorCommentCounts;
+import com.google.sps.storage.InMemoryCommentStore;
+import com.google.sps.storage.InMemoryFeedVersionStore;
+import com.google.sps.utils.CommentFeedVersion;
+import com.google.sps.utils.Json;
+import com.google.sps.utils.RateLimiter;
 import com.google.sps.utils.Requests;
+import com.google.sps.utils.WriteBehindBuffer;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 /**
- * Uses Datastore to store Comment Objects which can be Read on GET or Added to on POST
+ * Uses a CommentStore to store Comment Objects which can be Read on GET or Added to on POST
  */
 @WebServlet("/data")
 public class DataServlet extends HttpServlet {
-  private static final DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
+  private static final Logger logger = Logger.getLogger(DataServlet.class.getName());
   private static final UserService userService = UserServiceFactory.getUserService();
-  private static Gson gson = new Gson();
+  private static final int DEFAULT_PAGE_SIZE = 20;
+  private static final int MAX_PAGE_SIZE = 1000;
+  private static final int AUTHOR_BATCH_SIZE = 100;
+  private static final long SEARCH_INDEX_REFRESH_MS = 10 * 1000;
+  private static final int WRITE_BEHIND_RETRY_AFTER_S = 5;
+  private static final long MODERATION_CLOSE_TIMEOUT_MS = 10 * 1000;
+  // Comments still pending this long after being posted lost their moderation, e.g. to an instance stopping
+  private static final long PENDING_RECOVERY_AGE_MS = 5 * 60 * 1000;
+  private static final long PENDING_RECOVERY_INTERVAL_MS = 60 * 1000;
+  private static final int PENDING_RECOVERY_BATCH_SIZE = 100;
+  private static final int LEGACY_UPGRADE_BATCH_SIZE = 500;
+  private static final int MAX_LEGACY_UPGRADE_BATCHES = 20;
+  // Each user may post a burst of 10 comments, then one every 10 seconds
+  private static final RateLimiter commentRateLimiter = new RateLimiter(10, 0.1, 10000);
+  private static final CommentStore commentStore = createCommentStore();
+  private static final AuthorCommentCounts authorCommentCounts = createAuthorCommentCounts();
+  private static final CommentSearchIndex searchIndex =
+      new CommentSearchIndex(commentStore, SEARCH_INDEX_REFRESH_MS);
+  private static final CommentFeedVersion feedVersion = new CommentFeedVersion(createFeedVersionStore());
+  private static final ExecutorService authorNameUpdater = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "author-name-updater");
+    thread.setDaemon(true);
+    return thread;
+  });
+  private static final ModerationPipeline moderationPipeline = createModerationPipeline();
+  private static final ScheduledExecutorService commentMaintenance = createCommentMaintenance();
+  // Null unless comments are configured to be stored in the background, see createCommentWriteBuffer
+  private static final WriteBehindBuffer<Comment> commentWriteBuffer = createCommentWriteBuffer();
 
   /**
-   * Gives response containing a single Json List with all stored comments from datastore
-   * List sorted from oldest to newest comment
+   * Gives response containing a Json object with one page of stored comments
+   * The object has a comments list sorted from newest to oldest comment, and if more comments follow
+   *   a cursor String which requests the following page
+   * The response is streamed, comments are written as they are read from the CommentStore
+   * page-size parameter sets the maximum number of comments in the page, defaulting to DEFAULT_PAGE_SIZE
+   * cursor parameter is the cursor of a previously sent page, the comments following that page are sent
+   * since-ms parameter limits the comments to those made visible after the given visibleMs,
+   *   then the comments list is instead sorted from oldest to newest so clients can apply it as a delta
+   * If page-size is not an integer between 1 and MAX_PAGE_SIZE, since-ms is not an integer below Long.MAX_VALUE
+   *   or cursor is invalid, return a HTTP 400 error code
+   * Every response carries an ETag for the whole feed, and a Last-Modified once the second it last changed in is over
+   * If the request's If-None-Match or If-Modified-Since shows the feed is unchanged return HTTP 304 without querying
+   *   comments, only the shared feed version is read
    */
   @Override
   public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
-    Query query = new Query("Comment").addSort("timestamp-ms", SortDirection.ASCENDING);
-    PreparedQuery results = datastore.prepare(query);
-
-    List<Comment> comments = new ArrayList<>();
-    for (Entity commentEn : results.asIterable()) {
-      String authorId = (String) commentEn.getProperty("author-id");
-      // TODO query all user entities at once
-      Entity authorEn = UserInformationServlet.getUserEntity(authorId);
-      if(authorEn != null) {
-        comments.add(Comment.builder()
-            .commentText((String) commentEn.getProperty("comment-text"))
-            .authorName((String) authorEn.getProperty("display-name"))
-            .timestampMs((long) commentEn.getProperty("timestamp-ms"))
-            .build()
-        );
+    int pageSize;
+    Long sinceMs = null;
+    try {
+      pageSize = Requests.getIntParameter(request, "page-size", DEFAULT_PAGE_SIZE);
+      if(Requests.hasParameterValue(request, "since-ms")) {
+        sinceMs = Requests.getLongParameter(request, "since-ms", 0);
+      }
+    } catch (NumberFormatException e) {
+      response.setStatus(400);
+      return;
+    }
+    // No comment can be newer than Long.MAX_VALUE, and the range starting after it would overflow
+    if(pageSize < 1 || pageSize > MAX_PAGE_SIZE || (sinceMs != null && sinceMs == Long.MAX_VALUE)) {
+      response.setStatus(400);
+      return;
+    }
+
+    CommentFeedVersion.Snapshot feedSnapshot = feedVersion.getSnapshot();
+    String eTag = feedSnapshot.getETag();
+    long lastModifiedMs = feedSnapshot.getLastModifiedMs();
+    response.setHeader("ETag", eTag);
+    if(lastModifiedMs > 0) {
+      response.setDateHeader("Last-Modified", lastModifiedMs);
+    }
+    // Clients may keep the feed but must revalidate it on every use
+    response.setHeader("Cache-Control", "no-cache");
+    if(Requests.isNotModified(request, eTag, lastModifiedMs)) {
+      response.setStatus(304);
+      return;
+    }
+
+    CommentPage page;
+    try {
+      String cursor = Requests.getParameter(request, "cursor", null);
+      if(sinceMs != null) {
+        page = commentStore.getRange(sinceMs + 1, Long.MAX_VALUE, pageSize, cursor);
+      } else {
+        page = commentStore.getNewest(pageSize, cursor);
       }
+    } catch (IllegalArgumentException e) {
+      // Thrown for a malformed cursor
+      response.setStatus(400);
+      return;
     }
-    String json = gson.toJson(comments);
+
+    // Comments are written as they are read so the page is never held in memory as a whole
     response.setContentType("application/json;");
-    response.getWriter().println(json);
+    JsonWriter writer = new JsonWriter(response.getWriter());
+    writer.beginObject();
+    writer.name("comments").beginArray();
+    List<Comment> commentBatch = new ArrayList<>(AUTHOR_BATCH_SIZE);
+    while (page.hasNext()) {
+      commentBatch.add(page.next());
+      if(commentBatch.size() == AUTHOR_BATCH_SIZE || !page.hasNext()) {
+        writeComments(writer, commentBatch);
+        commentBatch.clear();
+      }
+    }
+    writer.endArray();
+    String nextCursor = page.getNextCursor();
+    if(nextCursor != null) {
+      writer.name("cursor").value(nextCursor);
+    }
+    writer.endObject();
+    writer.flush();
+  }
+
+  /**
+   * Writes each Comment that has a known author to writer as Json
+   */
+  private static void writeComments(JsonWriter writer, List<Comment> comments) throws IOException {
+    for (Comment comment : withAuthorNames(comments)) {
+      Json.getCommentAdapter().write(writer, comment);
+    }
+  }
+
+  /**
+   * Returns the given Comments, skipping any whose author is unknown
+   * Comments stored before author names were kept on Comments have no author name,
+   *   their authors are resolved with one batched get
+   */
+  static List<Comment> withAuthorNames(List<Comment> comments) {
+    Set<String> unnamedAuthorIds = new HashSet<>();
+    for (Comment comment : comments) {
+      if(comment.getAuthorName() == null) {
+        unnamedAuthorIds.add(comment.getAuthorId());
+      }
+    }
+    if(unnamedAuthorIds.isEmpty()) {
+      return comments;
+    }
+    Map<String, Entity> authors = UserInformationServlet.getUserEntities(unnamedAuthorIds);
+
+    List<Comment> namedComments = new ArrayList<>(comments.size());
+    for (Comment comment : comments) {
+      if(comment.getAuthorName() == null) {
+        Entity authorEn = authors.get(comment.getAuthorId());
+        if(authorEn == null) {
+          continue;
+        }
+        // Stores may return the Comments they hold, so named copies are returned rather than changing them
+        comment = comment.toBuilder().authorName((String) authorEn.getProperty("display-name")).build();
+      }
+      namedComments.add(comment);
+    }
+    return namedComments;
   }
 
   /**
    * Iff request has a non-null comment-text parameter,
-   *   then create and store the parameter's String as a Datastore Comment Object
-   * Always redirect to index.html
+   *   then create and store the parameter's String as a pending Comment
+   * The Comment is moderated in the background, once approved it is made visible
+   *   and pushed to clients of the CommentStreamServlet, once rejected it is deleted
+   * If comments are stored in the background, the Comment is buffered and stored in a later batch instead
+   * Redirect to index.html unless the write behind buffer is full,
+   *   then return a HTTP 503 error code with a Retry-After header as the comment wasn't accepted
    * If poster not logged in, return a HTTP 403 error code as they must be logged in to comment
+   * If poster is posting too quickly, return a HTTP 429 error code with a Retry-After header
    * If comment contains no text return a HTTP 400 error code as empty comments aren't allowed
    */
   @Override
   public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
     if(userService.isUserLoggedIn()) {
-      String comment = Requests.getParameter(request, "comment-text", "");
-      if ("".equals(comment)) {
+      String commentText = Requests.getParameter(request, "comment-text", "");
+      if ("".equals(commentText)) {
         response.setStatus(400);
       } else {
+        // Only posts which would be stored use up the poster's rate limit
+        long retryAfterMs = commentRateLimiter.tryAcquire(userService.getCurrentUser().getUserId());
+        if(retryAfterMs > 0) {
+          Requests.setTooManyRequests(response, retryAfterMs);
+          return;
+        }
         // User is logged in and posting a non-empty comment, store their requested comment
         String authorId = userService.getCurrentUser().getUserId();
-        long timestampMs = System.currentTimeMillis();
-        Entity commentEn = new Entity("Comment");
-        commentEn.setProperty("comment-text", comment);
-        commentEn.setProperty("timestamp-ms", timestampMs);
-        commentEn.setProperty("author-id", authorId);
-        datastore.put(commentEn);
+        // The author name is stored on the Comment so reading the feed doesn't need to look up every author
+        // It is read uncached, as a name cached before a rename on another instance would be stored for good
+        String authorName = null;
+        long authorNameVersion = 0;
+        Entity authorEn = UserInformationServlet.readUserEntity(authorId);
+        if(authorEn != null) {
+          authorName = (String) authorEn.getProperty("display-name");
+          authorNameVersion = UserInformationServlet.getNameVersion(authorEn);
+        }
+        Comment comment = Comment.builder()
+            .authorId(authorId)
+            .authorName(authorName)
+            .authorNameVersion(authorNameVersion)
+            .commentText(commentText)
+            .timestampMs(System.currentTimeMillis())
+            .pending(true)
+            .build();
+        if(commentWriteBuffer == null) {
+          List<Comment> comments = Collections.singletonList(comment);
+          commentStore.append(comments);
+          onCommentsStored(comments);
+        } else if(!commentWriteBuffer.offer(comment)) {
+          // Too many comments are waiting to be stored, ask the client to try again later
+          response.setStatus(503);
+          response.setIntHeader("Retry-After", WRITE_BEHIND_RETRY_AFTER_S);
+          return;
+        }
       }
     } else {
       response.setStatus(403);
     }
     response.sendRedirect("/index.html");
   }
+
+  /**
+   * Stores any comments still waiting in the write behind buffer, then waits for stored comments to be moderated
+   */
+  @Override
+  public void destroy() {
+    commentMaintenance.shutdownNow();
+    if(commentWriteBuffer != null) {
+      commentWriteBuffer.close();
+    }
+    try {
+      moderationPipeline.close(MODERATION_CLOSE_TIMEOUT_MS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Sends newly stored pending Comments to be moderated, and checks in the background that their author
+   *   wasn't renamed while they were being stored
+   */
+  private static void onCommentsStored(List<Comment> comments) {
+    for (Comment comment : comments) {
+      moderationPipeline.submit(comment);
+    }
+    authorNameUpdater.execute(() -> {
+      for (Comment comment : comments) {
+        recheckAuthorName(comment);
+      }
+    });
+  }
+
+  /**
+   * Copies the author's current name to their Comments if it is newer than the one stored comment was posted with
+   * A rename whose Comments were updated before comment was stored would otherwise never reach it
+   */
+  private static void recheckAuthorName(Comment comment) {
+    try {
+      Entity authorEn = UserInformationServlet.readUserEntity(comment.getAuthorId());
+      if(authorEn != null) {
+        long nameVersion = UserInformationServlet.getNameVersion(authorEn);
+        if(nameVersion > comment.getAuthorNameVersion()) {
+          commentStore.updateAuthorName(comment.getAuthorId(), (String) authorEn.getProperty("display-name"),
+              nameVersion);
+          feedVersion.recordChange();
+        }
+      } else if(comment.getAuthorName() != null) {
+        // The author was deleted after their name was read, the deletion's version is no longer stored
+        commentStore.updateAuthorName(comment.getAuthorId(), null, comment.getAuthorNameVersion() + 1);
+        feedVersion.recordChange();
+      }
+    } catch (RuntimeException e) {
+      logger.log(Level.WARNING, "Failed to check the author name of comment " + comment.getId(), e);
+    }
+  }
+
+  /**
+   * Upgrades Comments stored in an older layout, so they show in the feed again
+   * The feed version and search index are brought up to date if any Comment was upgraded
+   */
+  private static void upgradeLegacyComments() {
+    try {
+      int upgradedCount = 0;
+      // Bounded so a query still returning upgraded Comments can't loop forever, the rest wait for the next run
+      for (int batch = 0; batch < MAX_LEGACY_UPGRADE_BATCHES; batch++) {
+        int batchCount = commentStore.upgradeLegacyComments(LEGACY_UPGRADE_BATCH_SIZE);
+        upgradedCount += batchCount;
+        if(batchCount < LEGACY_UPGRADE_BATCH_SIZE) {
+          break;
+        }
+      }
+      if(upgradedCount > 0) {
+        logger.info("Upgraded " + upgradedCount + " legacy comments");
+        feedVersion.recordChange();
+        searchIndex.rebuild();
+      }
+    } catch (RuntimeException e) {
+      logger.log(Level.WARNING, "Failed to upgrade legacy comments", e);
+    }
+  }
+
+  /**
+   * Submits Comments left pending for longer than PENDING_RECOVERY_AGE_MS to be moderated again
+   */
+  private static void recoverPendingComments() {
+    try {
+      long postedBeforeMs = System.currentTimeMillis() - PENDING_RECOVERY_AGE_MS;
+      for (Comment comment : commentStore.getPending(postedBeforeMs, PENDING_RECOVERY_BATCH_SIZE)) {
+        logger.info("Moderating comment " + comment.getId() + " again, it was left pending");
+        if(!moderationPipeline.submit(comment)) {
+          return;
+        }
+      }
+    } catch (RuntimeException e) {
+      logger.log(Level.WARNING, "Failed to recover pending comments", e);
+    }
+  }
+
+  /**
+   * Makes Comments which passed moderation visible in the CommentStore, then to the feed version, search and
+   *   author counts, and pushes them to stream clients
+   * Comments are only counted once visible, so counts never include pending or rejected Comments
+   */
+  private static void onCommentsApproved(List<Comment> comments) {
+    // Comments recovered by two instances at once are only made visible, counted and published once
+    List<Comment> visibleComments = commentStore.makeVisible(comments);
+    Map<String, Long> authorCommentAmounts = new HashMap<>();
+    if(!visibleComments.isEmpty()) {
+      feedVersion.recordChange();
+    }
+    for (Comment comment : visibleComments) {
+      searchIndex.add(comment);
+      authorCommentAmounts.merge(comment.getAuthorId(), 1L, Long::sum);
+    }
+    for (Map.Entry<String, Long> amount : authorCommentAmounts.entrySet()) {
+      try {
+        authorCommentCounts.increment(amount.getKey(), amount.getValue());
+      } catch (RuntimeException e) {
+        logger.log(Level.WARNING, "Failed to count " + amount.getValue() + " comments by " + amount.getKey(), e);
+      }
+    }
+    for (Comment comment : withAuthorNames(visibleComments)) {
+      CommentStreamServlet.publish(comment);
+    }
+  }
+
+  /**
+   * Deletes Comments which failed moderation
+   */
+  private static void onCommentsRejected(List<Comment> comments) {
+    commentStore.delete(comments);
+    for (Comment comment : comments) {
+      if(comment.getId() != null) {
+        searchIndex.remove(comment.getId());
+      }
+    }
+  }
+
+  /**
+   * Replaces the author name stored on every Comment by the given author with an older copy than nameVersion
+   * A null authorName clears the stored name, so the Comments are only shown while their author exists
+   * The Comments are updated in the background, so this returns immediately
+   */
+  public static void updateAuthorName(String authorId, String authorName, long nameVersion) {
+    authorNameUpdater.execute(() -> {
+      commentStore.updateAuthorName(authorId, authorName, nameVersion);
+      feedVersion.recordChange();
+    });
+  }
+
+  /**
+   * Brings the feed version, search index and user cache up to date after Comment and User Entities
+   *   were imported directly into Datastore
+   */
+  static void onEntitiesImported() {
+    // Imported Comments may be in an older layout
+    commentMaintenance.execute(DataServlet::upgradeLegacyComments);
+    feedVersion.recordChange();
+    searchIndex.rebuild();
+    UserInformationServlet.getUserCache().clear();
+  }
+
+  /**
+   * Returns the CommentStore holding every Comment
+   */
+  static CommentStore getCommentStore() {
+    return commentStore;
+  }
+
+  /**
+   * Returns the number of Comments written by each author
+   */
+  static AuthorCommentCounts getAuthorCommentCounts() {
+    return authorCommentCounts;
+  }
+
+  /**
+   * Returns the search index of every Comment's text
+   */
+  static CommentSearchIndex getSearchIndex() {
+    return searchIndex;
+  }
+
+  /**
+   * Creates the CommentStore named by the comments.store system property,
+   *   "memory" keeps comments in process memory and anything else keeps them in Datastore
+   */
+  private static CommentStore createCommentStore() {
+    if("memory".equals(System.getProperty("comments.store"))) {
+      return new InMemoryCommentStore();
+    }
+    return new DatastoreCommentStore(Metrics.timed(DatastoreServiceFactory.getDatastoreService()));
+  }
+
+  /**
+   * Creates the AuthorCommentCounts kept next to the CommentStore chosen by the comments.store system property
+   */
+  private static AuthorCommentCounts createAuthorCommentCounts() {
+    if("memory".equals(System.getProperty("comments.store"))) {
+      return new InMemoryAuthorCommentCounts();
+    }
+    return new DatastoreAuthorCommentCounts(Metrics.timed(DatastoreServiceFactory.getDatastoreService()));
+  }
+
+  /**
+   * Creates the FeedVersionStore kept next to the CommentStore chosen by the comments.store system property
+   */
+  private static FeedVersionStore createFeedVersionStore() {
+    if("memory".equals(System.getProperty("comments.store"))) {
+      return new InMemoryFeedVersionStore();
+    }
+    return new DatastoreFeedVersionStore(Metrics.timed(DatastoreServiceFactory.getDatastoreService()));
+  }
+
+  /**
+   * Creates the pipeline moderating posted comments, configured by the comments.moderation system properties
+   * Stages run cheapest first: text length, banned terms given as a comma separated list, then duplicates
+   *   of the author's recent comments
+   */
+  private static ModerationPipeline createModerationPipeline() {
+    List<ModerationStage> stages = new ArrayList<>();
+    stages.add(new LengthStage(
+        Integer.getInteger("comments.moderation.min-length", 1),
+        Integer.getInteger("comments.moderation.max-length", 2000)));
+    stages.add(new BannedTermsStage(new TermMatcher(
+        Arrays.asList(System.getProperty("comments.moderation.banned-terms", "").split(",")))));
+    stages.add(new DuplicateStage(10000, Long.getLong("comments.moderation.duplicate-window-ms", 10 * 60 * 1000)));
+    return new ModerationPipeline(stages, Integer.getInteger("comments.moderation.workers", 2),
+        DataServlet::onCommentsApproved, DataServlet::onCommentsRejected);
+  }
+
+  /**
+   * Starts recovering pending Comments and upgrading legacy Comments once the servlet loads,
+   *   then every PENDING_RECOVERY_INTERVAL_MS
+   */
+  private static ScheduledExecutorService createCommentMaintenance() {
+    ScheduledExecutorService maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "comment-maintenance");
+      thread.setDaemon(true);
+      return thread;
+    });
+    maintenance.scheduleWithFixedDelay(() -> {
+      upgradeLegacyComments();
+      recoverPendingComments();
+    }, 0, PENDING_RECOVERY_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    return maintenance;
+  }
+
+  /**
+   * Creates the write behind buffer for comments if the comments.write-behind system property is true,
+   *   otherwise returns null and comments are stored synchronously
+   */
+  private static WriteBehindBuffer<Comment> createCommentWriteBuffer() {
+    if(!Boolean.getBoolean("comments.write-behind")) {
+      return null;
+    }
+    return new WriteBehindBuffer<>(
+        Integer.getInteger("comments.write-behind.capacity", 1000),
+        Integer.getInteger("comments.write-behind.batch-size", 100),
+        Long.getLong("comments.write-behind.flush-interval-ms", 1000),
+        commentStore::append,
+        DataServlet::onCommentsStored
+    );
+  }
 }
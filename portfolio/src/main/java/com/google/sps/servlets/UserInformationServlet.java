@@ -3,15 +3,24 @@ package com.google.sps.servlets;
 import com.google.appengine.api.datastore.DatastoreService;
 import com.google.appengine.api.datastore.DatastoreServiceFactory;
 import com.google.appengine.api.datastore.Entity;
-import com.google.appengine.api.datastore.PreparedQuery;
-import com.google.appengine.api.datastore.Query;
-import com.google.appengine.api.datastore.Query.SortDirection;
+import com.google.appengine.api.datastore.EntityNotFoundException;
+import com.google.appengine.api.datastore.Key;
+import com.google.appengine.api.datastore.KeyFactory;
 import com.google.appengine.api.users.UserService;
 import com.google.appengine.api.users.UserServiceFactory;
-import com.google.gson.Gson;
+import com.google.sps.metrics.Metrics;
+import com.google.sps.utils.ExpiringCache;
+import com.google.sps.utils.Json;
+import com.google.sps.utils.RateLimiter;
+import com.google.sps.utils.Requests;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
@@ -24,10 +33,15 @@ import javax.servlet.http.HttpServletResponse;
  */
 @WebServlet("/userInfo")
 public class UserInformationServlet extends HttpServlet {
-  private static final DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
-  private static Gson gson = new Gson();
+  private static final DatastoreService datastore = Metrics.timed(DatastoreServiceFactory.getDatastoreService());
   private static final List<String> userPropertyNames = Arrays.asList("display-name", "email");
   private static final UserService userService = UserServiceFactory.getUserService();
+  private static final int USER_CACHE_SIZE = 10000;
+  private static final long USER_CACHE_TTL_MS = 5 * 60 * 1000;
+  private static final ExpiringCache<String, Entity> userCache =
+      new ExpiringCache<>(USER_CACHE_SIZE, USER_CACHE_TTL_MS);
+  // Each user may make a burst of 5 profile updates, then one every 30 seconds
+  private static final RateLimiter updateRateLimiter = new RateLimiter(5, 1.0 / 30, 10000);
 
   /**
    * Sends JSON representation of the User with id user-id
@@ -51,7 +65,10 @@ public class UserInformationServlet extends HttpServlet {
       response.setStatus(404);
       return;
     }
-    String requestedUserJson = gson.toJson(requestedUserEntity.getProperties());
+    Map<String, Object> requestedUserProperties = new LinkedHashMap<>(requestedUserEntity.getProperties());
+    // The version only orders renames copied to Comments, it isn't user information
+    requestedUserProperties.remove("display-name-version");
+    String requestedUserJson = Json.getUserPropertiesAdapter().toJson(requestedUserProperties);
     response.setContentType("application/json;");
     response.getWriter().println(requestedUserJson);
   }
@@ -59,6 +76,8 @@ public class UserInformationServlet extends HttpServlet {
 
   /**
    * Deletes User Information for the logged in user
+   * The display name copied to the user's Comments is cleared in the background with a newer name version,
+   *   so their Comments are hidden from the feed as they were before names were copied
    * If no user logged in, return a HTTP 400 error code
    * If no User Information present, return a HTTP 404 error code
    */
@@ -72,6 +91,8 @@ public class UserInformationServlet extends HttpServlet {
     Entity userEntity = getUserEntity(userId);
     if(userEntity != null) {
       datastore.delete(userEntity.getKey());
+      userCache.invalidate(userId);
+      DataServlet.updateAuthorName(userId, null, nextNameVersion(userEntity));
     } else {
       response.setStatus(404);
     }
@@ -79,7 +100,10 @@ public class UserInformationServlet extends HttpServlet {
 
   /**
    * Creates or Updates the current user's User Object with parameters given
+   * A new or changed display-name is given a newer display-name-version and copied to the user's Comments
+   *   in the background
    * If User isn't logged in return a HTTP 400 error code, Datastore is not modified
+   * If User is updating too quickly return a HTTP 429 error code with a Retry-After header, Datastore is not modified
    */
   @Override
   public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
@@ -89,11 +113,17 @@ public class UserInformationServlet extends HttpServlet {
       return;
     }
     String userId = userService.getCurrentUser().getUserId();
+    long retryAfterMs = updateRateLimiter.tryAcquire(userId);
+    if(retryAfterMs > 0) {
+      Requests.setTooManyRequests(response, retryAfterMs);
+      return;
+    }
     Entity userEntity = getUserEntity(userId);
+    boolean displayNameChanged = false;
 
     if(userEntity == null) {
       // Create and store a new entity
-      userEntity = new Entity("User", userId);
+      userEntity = new Entity(createUserKey(userId));
       String userEmail = userService.getCurrentUser().getEmail();
       for(String propertyName : userPropertyNames) {
         String propertyValue = getRequestParameter(propertyName, request, "");
@@ -101,6 +131,9 @@ public class UserInformationServlet extends HttpServlet {
       }
       userEntity.setProperty("id", userId);
       userEntity.setProperty("email", userEmail); // email shouldn't be changed on create
+      // The user may have Comments from before they last deleted their information
+      displayNameChanged = true;
+      userEntity.setUnindexedProperty("display-name-version", nextNameVersion(null));
     } else {
       // Update present parameters
       for(String propertyName : userPropertyNames) {
@@ -110,21 +143,114 @@ public class UserInformationServlet extends HttpServlet {
         }
         String updatedPropertyValue = getRequestParameter(propertyName, request, currentPropertyValue);
         userEntity.setProperty(propertyName, updatedPropertyValue);
+        if("display-name".equals(propertyName) && !updatedPropertyValue.equals(currentPropertyValue)) {
+          displayNameChanged = true;
+        }
+      }
+      if(displayNameChanged) {
+        userEntity.setUnindexedProperty("display-name-version", nextNameVersion(userEntity));
       }
     }
     datastore.put(userEntity);
+    userCache.invalidate(userId);
+    if(displayNameChanged) {
+      // Comments keep a copy of their author's display name
+      DataServlet.updateAuthorName(userId, (String) userEntity.getProperty("display-name"),
+          getNameVersion(userEntity));
+    }
     response.sendRedirect("/");
   }
 
   /**
-   * Queries Datastore for a User Entity with the given Id, returns null if no match
+   * Gets the User Entity with the given Id, returns null if no match
+   * Served from the user cache when possible, otherwise the User is read by key and the result cached
    */
   public static Entity getUserEntity(String userId) {
-    Query query =
-        new Query("User")
-            .setFilter(new Query.FilterPredicate("id", Query.FilterOperator.EQUAL, userId));
-    PreparedQuery results = datastore.prepare(query);
-    return results.asSingleEntity();
+    Entity cachedUser = userCache.get(userId);
+    if(cachedUser != null) {
+      return cachedUser.clone();
+    }
+    // Users are stored with their Id as the key name, so a key get is a strongly consistent point read
+    Entity userEntity;
+    try {
+      userEntity = datastore.get(createUserKey(userId));
+    } catch (EntityNotFoundException e) {
+      return null;
+    }
+    userCache.put(userId, userEntity.clone());
+    return userEntity;
+  }
+
+  /**
+   * Reads the User Entity with the given Id from Datastore, bypassing the user cache, returns null if no match
+   * The key get is strongly consistent, so the User is never older than the last write on any instance
+   */
+  public static Entity readUserEntity(String userId) {
+    Entity userEntity;
+    try {
+      userEntity = datastore.get(createUserKey(userId));
+    } catch (EntityNotFoundException e) {
+      userCache.invalidate(userId);
+      return null;
+    }
+    userCache.put(userId, userEntity.clone());
+    return userEntity;
+  }
+
+  /**
+   * Returns the version of the User's display name, 0 for a User stored before names were versioned
+   */
+  public static long getNameVersion(Entity userEntity) {
+    Object nameVersion = userEntity.getProperty("display-name-version");
+    return nameVersion == null ? 0 : (long) nameVersion;
+  }
+
+  /**
+   * Returns a display name version newer than the User's current one
+   * Versions are the time of the change so they keep growing after a User is deleted and created again
+   */
+  private static long nextNameVersion(Entity userEntity) {
+    long currentVersion = userEntity == null ? 0 : getNameVersion(userEntity);
+    return Math.max(System.currentTimeMillis(), currentVersion + 1);
+  }
+
+  /**
+   * Gets the User Entities for every given Id, only uncached users are fetched with a single batched Datastore get
+   * Returns a map from user Id to User Entity, Ids with no stored User are absent from the map
+   */
+  public static Map<String, Entity> getUserEntities(Collection<String> userIds) {
+    Map<String, Entity> usersById = new HashMap<>();
+    List<Key> uncachedUserKeys = new ArrayList<>();
+    for(String userId : userIds) {
+      Entity cachedUser = userCache.get(userId);
+      if(cachedUser != null) {
+        usersById.put(userId, cachedUser.clone());
+      } else {
+        uncachedUserKeys.add(createUserKey(userId));
+      }
+    }
+    if(!uncachedUserKeys.isEmpty()) {
+      for(Entity userEntity : datastore.get(uncachedUserKeys).values()) {
+        String userId = userEntity.getKey().getName();
+        usersById.put(userId, userEntity);
+        userCache.put(userId, userEntity.clone());
+      }
+    }
+    return usersById;
+  }
+
+  /**
+   * Returns the Datastore key of the User Entity with the given Id
+   */
+  private static Key createUserKey(String userId) {
+    return KeyFactory.createKey("User", userId);
+  }
+
+  /**
+   * Returns the cache of User Entities, exposed for its hit and miss counts
+   */
+  public static ExpiringCache<String, Entity> getUserCache() {
+    return userCache;
   }
 
   /**
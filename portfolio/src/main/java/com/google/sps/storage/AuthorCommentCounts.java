@@ -0,0 +1,32 @@
+package com.google.sps.storage;
+
+import java.util.List;
+
+/**
+ * Precomputed number of Comments written by each author, kept next to the CommentStore so counts never
+ *   need a scan of every Comment
+ */
+public interface AuthorCommentCounts {
+
+  /**
+   * Adds amount to the number of Comments written by the given author
+   */
+  void increment(String authorId, long amount);
+
+  /**
+   * Subtracts amount from the number of Comments written by the given author, after Comments are deleted
+   */
+  void decrement(String authorId, long amount);
+
+  /**
+   * Returns the number of Comments written by the given author
+   */
+  long getCount(String authorId);
+
+  /**
+   * Returns at most limit authors with the most Comments, sorted from most to fewest Comments
+   * Authors without any Comments are left out
+   * The ranking may be materialized and lag recent changes, unlike getCount
+   */
+  List<AuthorCount> getTopAuthors(int limit);
+}
@@ -0,0 +1,25 @@
+package com.google.sps.storage;
+
+import lombok.Getter;
+
+/**
+ * The number of Comments written by one author
+ */
+@Getter
+public class AuthorCount {
+  private final String authorId;
+  private final long commentCount;
+
+  public AuthorCount(String authorId, long commentCount) {
+    this.authorId = authorId;
+    this.commentCount = commentCount;
+  }
+
+  /**
+   * Orders AuthorCounts from most to fewest Comments, then by authorId
+   */
+  static int compareByCountDescending(AuthorCount a, AuthorCount b) {
+    int byCount = Long.compare(b.commentCount, a.commentCount);
+    return byCount != 0 ? byCount : a.authorId.compareTo(b.authorId);
+  }
+}
@@ -0,0 +1,16 @@
+package com.google.sps.storage;
+
+import com.google.sps.entities.Comment;
+import java.util.Iterator;
+
+/**
+ * One page of Comments read from a CommentStore, Comments may be read lazily as the page is iterated
+ */
+public interface CommentPage extends Iterator<Comment> {
+
+  /**
+   * Returns the cursor of the following page, null if this page was the last one
+   * Only valid once every Comment of this page has been iterated
+   */
+  String getNextCursor();
+}
@@ -0,0 +1,71 @@
+package com.google.sps.storage;
+
+import com.google.sps.entities.Comment;
+import java.util.List;
+
+/**
+ * Storage of Comments ordered by their visibleMs, when they became visible
+ * Cursors are opaque Strings given by a CommentPage, a cursor is only valid for the same kind of read it came from
+ * Reads throw IllegalArgumentException for a malformed cursor
+ * Pending Comments are stored but left out of every read until makeVisible is called for them
+ */
+public interface CommentStore {
+
+  /**
+   * Stores every Comment, setting the id of each
+   */
+  void append(List<Comment> comments);
+
+  /**
+   * Returns a page of at most pageSize Comments sorted from newest to oldest
+   * If cursor is non-null the page starts after the page which gave the cursor
+   */
+  CommentPage getNewest(int pageSize, String cursor);
+
+  /**
+   * Returns a page of at most pageSize Comments with startMs <= visibleMs < endMs sorted from oldest to newest
+   * If cursor is non-null the page starts after the page which gave the cursor
+   */
+  CommentPage getRange(long startMs, long endMs, int pageSize, String cursor);
+
+  /**
+   * Makes stored pending Comments visible, setting their visibleMs to now so Comments which become visible
+   *   later are always newer and clients reading only Comments since their newest one don't miss them
+   * timestampMs keeps the time the Comment was posted
+   * Returns the Comments which were still pending and are now visible, Comments already visible or deleted
+   *   are left unchanged
+   */
+  List<Comment> makeVisible(List<Comment> comments);
+
+  /**
+   * Deletes stored Comments, pending or visible
+   */
+  void delete(List<Comment> comments);
+
+  /**
+   * Returns the Comments with the given ids in the same order, ids of missing Comments are skipped
+   */
+  List<Comment> getByIds(List<Long> ids);
+
+  /**
+   * Replaces the author name of every Comment by the given author whose copy of the name is older than nameVersion
+   * Renames applied out of order, or Comments posted with a stale name, never replace a newer name
+   */
+  void updateAuthorName(String authorId, String authorName, long nameVersion);
+
+  /**
+   * Returns at most limit pending Comments posted before postedBeforeMs, so Comments whose moderation was lost
+   *   can be moderated again
+   */
+  List<Comment> getPending(long postedBeforeMs, int limit);
+
+  /**
+   * Returns the visibleMs of the newest Comment, 0 if there are no Comments
+   */
+  long getLatestTimestampMs();
+
+  /**
+   * Brings at most limit Comments stored in an older layout up to date, returns how many were upgraded
+   */
+  int upgradeLegacyComments(int limit);
+}
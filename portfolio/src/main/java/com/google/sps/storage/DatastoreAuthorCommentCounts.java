@@ -0,0 +1,139 @@
+package com.google.sps.storage;
+
+import com.google.appengine.api.datastore.DatastoreService;
+import com.google.appengine.api.datastore.Entity;
+import com.google.appengine.api.datastore.EntityNotFoundException;
+import com.google.appengine.api.datastore.FetchOptions;
+import com.google.appengine.api.datastore.Key;
+import com.google.appengine.api.datastore.KeyFactory;
+import com.google.appengine.api.datastore.Query;
+import com.google.appengine.api.datastore.Transaction;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * AuthorCommentCounts keeping each author's count split over SHARD_COUNT AuthorCommentCountShard Entities
+ * A change updates one random shard in a transaction, so concurrent changes for the same author rarely
+ *   contend on one Entity, and an author's count is the sum of its shards
+ * The ranking of authors by count is materialized in memory from every shard at most once per RANKING_TTL_MS,
+ *   so top authors may be up to that old and stats reads don't each scan the whole kind
+ */
+public class DatastoreAuthorCommentCounts implements AuthorCommentCounts {
+  private static final String SHARD_KIND = "AuthorCommentCountShard";
+  private static final int SHARD_COUNT = 8;
+  private static final int MAX_ATTEMPTS = 3;
+  private static final int QUERY_CHUNK_SIZE = 500;
+  private static final long RANKING_TTL_MS = 60 * 1000;
+
+  private final DatastoreService datastore;
+  private volatile List<AuthorCount> ranking;
+  private volatile long rankedAtMs;
+
+  public DatastoreAuthorCommentCounts(DatastoreService datastore) {
+    this.datastore = datastore;
+  }
+
+  @Override
+  public void increment(String authorId, long amount) {
+    addToRandomShard(authorId, amount);
+  }
+
+  @Override
+  public void decrement(String authorId, long amount) {
+    addToRandomShard(authorId, -amount);
+  }
+
+  @Override
+  public long getCount(String authorId) {
+    List<Key> shardKeys = new ArrayList<>(SHARD_COUNT);
+    for (int shard = 0; shard < SHARD_COUNT; shard++) {
+      shardKeys.add(createShardKey(authorId, shard));
+    }
+    long count = 0;
+    for (Entity shardEn : datastore.get(shardKeys).values()) {
+      count += (long) shardEn.getProperty("count");
+    }
+    return count;
+  }
+
+  @Override
+  public List<AuthorCount> getTopAuthors(int limit) {
+    List<AuthorCount> authorCounts = getRanking();
+    return authorCounts.subList(0, Math.min(limit, authorCounts.size()));
+  }
+
+  /**
+   * Returns every author with Comments sorted from most to fewest, ranking them again if the ranking expired
+   * Only one thread ranks at a time, others wait for its result
+   */
+  private List<AuthorCount> getRanking() {
+    if(ranking != null && System.currentTimeMillis() - rankedAtMs < RANKING_TTL_MS) {
+      return ranking;
+    }
+    synchronized (this) {
+      if(ranking == null || System.currentTimeMillis() - rankedAtMs >= RANKING_TTL_MS) {
+        ranking = Collections.unmodifiableList(rankAuthors());
+        rankedAtMs = System.currentTimeMillis();
+      }
+      return ranking;
+    }
+  }
+
+  private List<AuthorCount> rankAuthors() {
+    Map<String, Long> counts = new HashMap<>();
+    for (Entity shardEn : datastore.prepare(new Query(SHARD_KIND))
+        .asIterable(FetchOptions.Builder.withChunkSize(QUERY_CHUNK_SIZE))) {
+      counts.merge((String) shardEn.getProperty("author-id"), (long) shardEn.getProperty("count"), Long::sum);
+    }
+    List<AuthorCount> authorCounts = new ArrayList<>(counts.size());
+    for (Map.Entry<String, Long> count : counts.entrySet()) {
+      if(count.getValue() > 0) {
+        authorCounts.add(new AuthorCount(count.getKey(), count.getValue()));
+      }
+    }
+    authorCounts.sort(AuthorCount::compareByCountDescending);
+    return authorCounts;
+  }
+
+  /**
+   * Adds amount to the count of a random shard of the author, retrying on another shard if the transaction
+   *   collides with a concurrent change
+   */
+  private void addToRandomShard(String authorId, long amount) {
+    for (int attempt = 1; ; attempt++) {
+      Key shardKey = createShardKey(authorId, ThreadLocalRandom.current().nextInt(SHARD_COUNT));
+      Transaction txn = datastore.beginTransaction();
+      try {
+        Entity shardEn;
+        try {
+          shardEn = datastore.get(txn, shardKey);
+        } catch (EntityNotFoundException e) {
+          shardEn = new Entity(shardKey);
+          shardEn.setProperty("author-id", authorId);
+          shardEn.setProperty("count", 0L);
+        }
+        shardEn.setProperty("count", (long) shardEn.getProperty("count") + amount);
+        datastore.put(txn, shardEn);
+        txn.commit();
+        return;
+      } catch (ConcurrentModificationException e) {
+        if(attempt >= MAX_ATTEMPTS) {
+          throw e;
+        }
+      } finally {
+        if(txn.isActive()) {
+          txn.rollback();
+        }
+      }
+    }
+  }
+
+  private static Key createShardKey(String authorId, int shard) {
+    return KeyFactory.createKey(SHARD_KIND, authorId + "-" + shard);
+  }
+}
@@ -0,0 +1,318 @@
+package com.google.sps.storage;
+
+import com.google.appengine.api.datastore.Cursor;
+import com.google.appengine.api.datastore.DatastoreService;
+import com.google.appengine.api.datastore.Entity;
+import com.google.appengine.api.datastore.EntityNotFoundException;
+import com.google.appengine.api.datastore.FetchOptions;
+import com.google.appengine.api.datastore.Key;
+import com.google.appengine.api.datastore.KeyFactory;
+import com.google.appengine.api.datastore.Query;
+import com.google.appengine.api.datastore.Query.CompositeFilterOperator;
+import com.google.appengine.api.datastore.Query.FilterOperator;
+import com.google.appengine.api.datastore.Query.FilterPredicate;
+import com.google.appengine.api.datastore.Query.SortDirection;
+import com.google.appengine.api.datastore.QueryResultIterator;
+import com.google.appengine.api.datastore.Transaction;
+import com.google.sps.entities.Comment;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * CommentStore keeping each Comment as a Datastore Comment Entity
+ * Cursors are web safe Datastore Cursors
+ * Comments stored before author names were kept on Comment Entities are read with a null authorName
+ * Updates read and write each Comment Entity in its own transaction and only change the properties they own,
+ *   so concurrent updates of other properties are never overwritten
+ * timestamp-ms is the unindexed time a Comment was posted, visible-ms the indexed time it became visible
+ * Pending Comments have a moderation-state of pending and no visible-ms, every read queries by visible-ms
+ *   so Datastore leaves them out without a separate index
+ * Comments stored before visible-ms was kept have an indexed timestamp-ms instead, upgradeLegacyComments
+ *   copies it to visible-ms, until then they are left out of reads
+ */
+public class DatastoreCommentStore implements CommentStore {
+  // Datastore accepts at most 500 entities per batched put
+  private static final int MAX_PUT_BATCH_SIZE = 500;
+  private static final int MAX_CHUNK_SIZE = 100;
+  private static final int MAX_KEYS_CHUNK_SIZE = 500;
+  private static final int MAX_TRANSACTION_ATTEMPTS = 3;
+
+  private final DatastoreService datastore;
+
+  public DatastoreCommentStore(DatastoreService datastore) {
+    this.datastore = datastore;
+  }
+
+  @Override
+  public void append(List<Comment> comments) {
+    List<Entity> commentEntities = new ArrayList<>(comments.size());
+    for (Comment comment : comments) {
+      commentEntities.add(toEntity(comment));
+    }
+    for (int start = 0; start < commentEntities.size(); start += MAX_PUT_BATCH_SIZE) {
+      datastore.put(commentEntities.subList(start, Math.min(start + MAX_PUT_BATCH_SIZE, commentEntities.size())));
+    }
+    for (int i = 0; i < comments.size(); i++) {
+      comments.get(i).setId(commentEntities.get(i).getKey().getId());
+    }
+  }
+
+  @Override
+  public CommentPage getNewest(int pageSize, String cursor) {
+    Query query = new Query("Comment").addSort("visible-ms", SortDirection.DESCENDING);
+    return getPage(query, pageSize, cursor);
+  }
+
+  @Override
+  public CommentPage getRange(long startMs, long endMs, int pageSize, String cursor) {
+    Query query = new Query("Comment")
+        .setFilter(CompositeFilterOperator.and(
+            new FilterPredicate("visible-ms", FilterOperator.GREATER_THAN_OR_EQUAL, startMs),
+            new FilterPredicate("visible-ms", FilterOperator.LESS_THAN, endMs)))
+        .addSort("visible-ms", SortDirection.ASCENDING);
+    return getPage(query, pageSize, cursor);
+  }
+
+  @Override
+  public List<Comment> makeVisible(List<Comment> comments) {
+    long nowMs = System.currentTimeMillis();
+    List<Comment> visibleComments = new ArrayList<>(comments.size());
+    for (Comment comment : comments) {
+      boolean madeVisible = updateInTransaction(KeyFactory.createKey("Comment", comment.getId()), commentEn -> {
+        if(!"pending".equals(commentEn.getProperty("moderation-state"))) {
+          return false;
+        }
+        commentEn.setProperty("visible-ms", nowMs);
+        commentEn.removeProperty("moderation-state");
+        return true;
+      });
+      if(madeVisible) {
+        comment.setVisibleMs(nowMs);
+        comment.setPending(false);
+        visibleComments.add(comment);
+      }
+    }
+    return visibleComments;
+  }
+
+  @Override
+  public void delete(List<Comment> comments) {
+    datastore.delete(toKeys(comments));
+  }
+
+  @Override
+  public List<Comment> getByIds(List<Long> ids) {
+    List<Key> keys = new ArrayList<>(ids.size());
+    for (long id : ids) {
+      keys.add(KeyFactory.createKey("Comment", id));
+    }
+    Map<Key, Entity> commentEntities = datastore.get(keys);
+    List<Comment> comments = new ArrayList<>(ids.size());
+    for (Key key : keys) {
+      Entity commentEn = commentEntities.get(key);
+      if(commentEn != null) {
+        comments.add(toComment(commentEn));
+      }
+    }
+    return comments;
+  }
+
+  @Override
+  public void updateAuthorName(String authorId, String authorName, long nameVersion) {
+    Query query = new Query("Comment")
+        .setFilter(new FilterPredicate("author-id", FilterOperator.EQUAL, authorId))
+        .setKeysOnly();
+    FetchOptions fetchOptions = FetchOptions.Builder.withChunkSize(MAX_KEYS_CHUNK_SIZE);
+    for (Entity keyEn : datastore.prepare(query).asIterable(fetchOptions)) {
+      updateInTransaction(keyEn.getKey(), commentEn -> {
+        if(getAuthorNameVersion(commentEn) >= nameVersion) {
+          return false;
+        }
+        if(authorName == null) {
+          commentEn.removeProperty("author-name");
+        } else {
+          commentEn.setProperty("author-name", authorName);
+        }
+        commentEn.setUnindexedProperty("author-name-version", nameVersion);
+        return true;
+      });
+    }
+  }
+
+  @Override
+  public List<Comment> getPending(long postedBeforeMs, int limit) {
+    // timestamp-ms is unindexed, so only moderation-state is queried
+    Query query = new Query("Comment")
+        .setFilter(new FilterPredicate("moderation-state", FilterOperator.EQUAL, "pending"));
+    FetchOptions fetchOptions = FetchOptions.Builder.withChunkSize(MAX_CHUNK_SIZE);
+    List<Comment> stalePending = new ArrayList<>();
+    for (Entity commentEn : datastore.prepare(query).asIterable(fetchOptions)) {
+      if(stalePending.size() == limit) {
+        break;
+      }
+      if((long) commentEn.getProperty("timestamp-ms") < postedBeforeMs) {
+        stalePending.add(toComment(commentEn));
+      }
+    }
+    return stalePending;
+  }
+
+  @Override
+  public long getLatestTimestampMs() {
+    Query query = new Query("Comment").addSort("visible-ms", SortDirection.DESCENDING);
+    List<Entity> newest = datastore.prepare(query).asList(FetchOptions.Builder.withLimit(1));
+    return newest.isEmpty() ? 0 : (long) newest.get(0).getProperty("visible-ms");
+  }
+
+  /**
+   * Copies the indexed timestamp-ms of Comments stored before visible-ms was kept to visible-ms,
+   *   then unindexes timestamp-ms so they are never read as legacy Comments again
+   */
+  @Override
+  public int upgradeLegacyComments(int limit) {
+    // Only legacy Comments, and imported ones which update below, have an indexed timestamp-ms
+    Query query = new Query("Comment").addSort("timestamp-ms", SortDirection.ASCENDING).setKeysOnly();
+    int upgradedCount = 0;
+    for (Entity keyEn : datastore.prepare(query).asIterable(FetchOptions.Builder.withLimit(limit))) {
+      boolean upgraded = updateInTransaction(keyEn.getKey(), commentEn -> {
+        Object timestampMs = commentEn.getProperty("timestamp-ms");
+        if(!commentEn.hasProperty("visible-ms") && !commentEn.hasProperty("moderation-state")) {
+          commentEn.setProperty("visible-ms", timestampMs);
+        }
+        commentEn.setUnindexedProperty("timestamp-ms", timestampMs);
+        return true;
+      });
+      if(upgraded) {
+        upgradedCount++;
+      }
+    }
+    return upgradedCount;
+  }
+
+  /**
+   * Reads the Comment Entity with the given key in a transaction and writes it back if update changed it,
+   *   retrying if the transaction collides with a concurrent change
+   * Returns whether the Entity was changed, false if it no longer exists
+   */
+  private boolean updateInTransaction(Key key, Predicate<Entity> update) {
+    for (int attempt = 1; ; attempt++) {
+      Transaction txn = datastore.beginTransaction();
+      try {
+        Entity commentEn;
+        try {
+          commentEn = datastore.get(txn, key);
+        } catch (EntityNotFoundException e) {
+          return false;
+        }
+        if(!update.test(commentEn)) {
+          return false;
+        }
+        datastore.put(txn, commentEn);
+        txn.commit();
+        return true;
+      } catch (ConcurrentModificationException e) {
+        if(attempt >= MAX_TRANSACTION_ATTEMPTS) {
+          throw e;
+        }
+      } finally {
+        if(txn.isActive()) {
+          txn.rollback();
+        }
+      }
+    }
+  }
+
+  private CommentPage getPage(Query query, int pageSize, String cursor) {
+    FetchOptions fetchOptions = FetchOptions.Builder
+        .withLimit(pageSize)
+        .chunkSize(Math.min(pageSize, MAX_CHUNK_SIZE));
+    if(cursor != null) {
+      fetchOptions.startCursor(Cursor.fromWebSafeString(cursor));
+    }
+    QueryResultIterator<Entity> results = datastore.prepare(query).asQueryResultIterator(fetchOptions);
+    return new CommentPage() {
+      private int commentCount = 0;
+
+      @Override
+      public boolean hasNext() {
+        return results.hasNext();
+      }
+
+      @Override
+      public Comment next() {
+        commentCount++;
+        return toComment(results.next());
+      }
+
+      @Override
+      public String getNextCursor() {
+        // A short page means there are no more comments
+        if(commentCount < pageSize) {
+          return null;
+        }
+        return results.getCursor().toWebSafeString();
+      }
+    };
+  }
+
+  private static Entity toEntity(Comment comment) {
+    Entity commentEn = new Entity("Comment");
+    commentEn.setProperty("comment-text", comment.getCommentText());
+    commentEn.setUnindexedProperty("timestamp-ms", comment.getTimestampMs());
+    if(comment.isPending()) {
+      commentEn.setProperty("moderation-state", "pending");
+    } else {
+      long visibleMs = comment.getVisibleMs() != 0 ? comment.getVisibleMs() : comment.getTimestampMs();
+      commentEn.setProperty("visible-ms", visibleMs);
+    }
+    commentEn.setProperty("author-id", comment.getAuthorId());
+    if(comment.getAuthorName() != null) {
+      commentEn.setProperty("author-name", comment.getAuthorName());
+    }
+    commentEn.setUnindexedProperty("author-name-version", comment.getAuthorNameVersion());
+    return commentEn;
+  }
+
+  private static Comment toComment(Entity commentEn) {
+    return Comment.builder()
+        .id(commentEn.getKey().getId())
+        .authorId((String) commentEn.getProperty("author-id"))
+        .authorName((String) commentEn.getProperty("author-name"))
+        .commentText((String) commentEn.getProperty("comment-text"))
+        .timestampMs((long) commentEn.getProperty("timestamp-ms"))
+        .visibleMs(getVisibleMs(commentEn))
+        .pending("pending".equals(commentEn.getProperty("moderation-state")))
+        .authorNameVersion(getAuthorNameVersion(commentEn))
+        .build();
+  }
+
+  /**
+   * Returns when the Comment became visible, 0 while pending
+   * Legacy Comments became visible when they were posted
+   */
+  private static long getVisibleMs(Entity commentEn) {
+    if(commentEn.hasProperty("visible-ms")) {
+      return (long) commentEn.getProperty("visible-ms");
+    }
+    return commentEn.hasProperty("moderation-state") ? 0 : (long) commentEn.getProperty("timestamp-ms");
+  }
+
+  /**
+   * Comments stored before names were versioned have version 0, so any rename replaces their name
+   */
+  private static long getAuthorNameVersion(Entity commentEn) {
+    Object nameVersion = commentEn.getProperty("author-name-version");
+    return nameVersion == null ? 0 : (long) nameVersion;
+  }
+
+  private static List<Key> toKeys(List<Comment> comments) {
+    List<Key> keys = new ArrayList<>(comments.size());
+    for (Comment comment : comments) {
+      keys.add(KeyFactory.createKey("Comment", comment.getId()));
+    }
+    return keys;
+  }
+}
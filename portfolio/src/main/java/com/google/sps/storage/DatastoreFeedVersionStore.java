@@ -0,0 +1,80 @@
+package com.google.sps.storage;
+
+import com.google.appengine.api.datastore.DatastoreService;
+import com.google.appengine.api.datastore.Entity;
+import com.google.appengine.api.datastore.EntityNotFoundException;
+import com.google.appengine.api.datastore.Key;
+import com.google.appengine.api.datastore.KeyFactory;
+import com.google.appengine.api.datastore.Transaction;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * FeedVersionStore keeping the feed version split over SHARD_COUNT CommentFeedVersionShard Entities
+ * A change advances one random shard in a transaction, so concurrent changes rarely contend on one Entity
+ * The version is the sum of the shards' versions and the last modification the newest of theirs,
+ *   read with one strongly consistent batched get of every shard
+ */
+public class DatastoreFeedVersionStore implements FeedVersionStore {
+  private static final String SHARD_KIND = "CommentFeedVersionShard";
+  private static final int SHARD_COUNT = 4;
+  private static final int MAX_ATTEMPTS = 3;
+
+  private final DatastoreService datastore;
+  private final List<Key> shardKeys = new ArrayList<>(SHARD_COUNT);
+
+  public DatastoreFeedVersionStore(DatastoreService datastore) {
+    this.datastore = datastore;
+    for (int shard = 0; shard < SHARD_COUNT; shard++) {
+      shardKeys.add(KeyFactory.createKey(SHARD_KIND, "shard-" + shard));
+    }
+  }
+
+  /**
+   * Advances a random shard, retrying on another shard if the transaction collides with a concurrent change
+   */
+  @Override
+  public void advance() {
+    for (int attempt = 1; ; attempt++) {
+      Key shardKey = shardKeys.get(ThreadLocalRandom.current().nextInt(SHARD_COUNT));
+      Transaction txn = datastore.beginTransaction();
+      try {
+        Entity shardEn;
+        try {
+          shardEn = datastore.get(txn, shardKey);
+        } catch (EntityNotFoundException e) {
+          shardEn = new Entity(shardKey);
+          shardEn.setUnindexedProperty("version", 0L);
+          shardEn.setUnindexedProperty("last-modified-ms", 0L);
+        }
+        shardEn.setUnindexedProperty("version", (long) shardEn.getProperty("version") + 1);
+        shardEn.setUnindexedProperty("last-modified-ms",
+            Math.max(System.currentTimeMillis(), (long) shardEn.getProperty("last-modified-ms")));
+        datastore.put(txn, shardEn);
+        txn.commit();
+        return;
+      } catch (ConcurrentModificationException e) {
+        if(attempt >= MAX_ATTEMPTS) {
+          throw e;
+        }
+      } finally {
+        if(txn.isActive()) {
+          txn.rollback();
+        }
+      }
+    }
+  }
+
+  @Override
+  public FeedVersion read() {
+    long version = 0;
+    long lastModifiedMs = 0;
+    for (Entity shardEn : datastore.get(shardKeys).values()) {
+      version += (long) shardEn.getProperty("version");
+      lastModifiedMs = Math.max(lastModifiedMs, (long) shardEn.getProperty("last-modified-ms"));
+    }
+    return new FeedVersion(version, lastModifiedMs);
+  }
+}
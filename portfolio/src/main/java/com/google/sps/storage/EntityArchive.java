@@ -0,0 +1,256 @@
+package com.google.sps.storage;
+
+import com.google.appengine.api.datastore.Cursor;
+import com.google.appengine.api.datastore.DatastoreService;
+import com.google.appengine.api.datastore.Entity;
+import com.google.appengine.api.datastore.FetchOptions;
+import com.google.appengine.api.datastore.Key;
+import com.google.appengine.api.datastore.KeyFactory;
+import com.google.appengine.api.datastore.KeyRange;
+import com.google.appengine.api.datastore.Query;
+import com.google.appengine.api.datastore.QueryResultList;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Exports and imports the Comment and User kinds as newline delimited Json, one Entity per line:
+ *   {"kind":"Comment","id":123,"properties":{...}} or {"kind":"User","name":"...","properties":{...}}
+ * Property values are Strings, whole numbers, decimal numbers or booleans, any other value is exported as its
+ *   String form
+ */
+public class EntityArchive {
+  public static final List<String> KINDS = Arrays.asList("Comment", "User");
+  // Datastore accepts at most 500 entities per batched put
+  private static final int BATCH_SIZE = 500;
+
+  private final DatastoreService datastore;
+
+  public EntityArchive(DatastoreService datastore) {
+    this.datastore = datastore;
+  }
+
+  /**
+   * Writes every Entity of kind to out, one line each, ordered by key
+   * Entities are read BATCH_SIZE at a time, resuming each read from the previous read's cursor,
+   *   and out is flushed after each batch so the whole kind is never held in memory
+   * Returns the number of Entities written
+   */
+  public long export(String kind, Writer out) throws IOException {
+    checkKind(kind);
+    Query query = new Query(kind).addSort(Entity.KEY_RESERVED_PROPERTY);
+    long exportedCount = 0;
+    Cursor cursor = null;
+    while (true) {
+      FetchOptions fetchOptions = FetchOptions.Builder.withLimit(BATCH_SIZE);
+      if(cursor != null) {
+        fetchOptions.startCursor(cursor);
+      }
+      QueryResultList<Entity> batch = datastore.prepare(query).asQueryResultList(fetchOptions);
+      for (Entity entity : batch) {
+        writeEntity(entity, out);
+        out.write('\n');
+      }
+      out.flush();
+      exportedCount += batch.size();
+      if(batch.size() < BATCH_SIZE) {
+        return exportedCount;
+      }
+      cursor = batch.getCursor();
+    }
+  }
+
+  /**
+   * Reads Entities from in, one per line, and puts them in batches of BATCH_SIZE with at most parallelism
+   *   batches being put at once, an Entity with the same key as an imported one is replaced
+   * Imported Comment ids are reserved so Datastore never assigns them to new Comments
+   * Returns the number of Entities imported
+   * Throws IllegalArgumentException if a line is not an Entity of an archived kind, Entities on earlier lines
+   *   may already be imported
+   */
+  public long importFrom(Reader in, int parallelism) throws IOException {
+    ExecutorService putters = Executors.newFixedThreadPool(parallelism, runnable -> {
+      Thread thread = new Thread(runnable, "entity-archive-import");
+      thread.setDaemon(true);
+      return thread;
+    });
+    Semaphore puttingBatches = new Semaphore(parallelism);
+    AtomicReference<RuntimeException> putFailure = new AtomicReference<>();
+    long importedCount = 0;
+    long maxCommentId = 0;
+    try {
+      BufferedReader lines = new BufferedReader(in);
+      List<Entity> batch = new ArrayList<>(BATCH_SIZE);
+      int lineNumber = 0;
+      String line;
+      while ((line = lines.readLine()) != null && putFailure.get() == null) {
+        lineNumber++;
+        if(line.trim().isEmpty()) {
+          continue;
+        }
+        Entity entity = readEntity(line, lineNumber);
+        if("Comment".equals(entity.getKind())) {
+          maxCommentId = Math.max(maxCommentId, entity.getKey().getId());
+        }
+        batch.add(entity);
+        importedCount++;
+        if(batch.size() == BATCH_SIZE) {
+          submitPut(batch, putters, puttingBatches, putFailure);
+          batch = new ArrayList<>(BATCH_SIZE);
+        }
+      }
+      if(!batch.isEmpty()) {
+        submitPut(batch, putters, puttingBatches, putFailure);
+      }
+      puttingBatches.acquireUninterruptibly(parallelism);
+    } finally {
+      putters.shutdown();
+    }
+    if(putFailure.get() != null) {
+      throw putFailure.get();
+    }
+    if(maxCommentId > 0) {
+      datastore.allocateIdRange(new KeyRange(null, "Comment", 1, maxCommentId));
+    }
+    return importedCount;
+  }
+
+  /**
+   * Puts batch on one of the putters, first waiting until fewer than parallelism batches are being put
+   */
+  private void submitPut(List<Entity> batch, ExecutorService putters, Semaphore puttingBatches,
+      AtomicReference<RuntimeException> putFailure) {
+    puttingBatches.acquireUninterruptibly();
+    putters.execute(() -> {
+      try {
+        datastore.put(batch);
+      } catch (RuntimeException e) {
+        putFailure.compareAndSet(null, e);
+      } finally {
+        puttingBatches.release();
+      }
+    });
+  }
+
+  private static void writeEntity(Entity entity, Writer out) throws IOException {
+    JsonWriter writer = new JsonWriter(out);
+    writer.beginObject();
+    writer.name("kind").value(entity.getKind());
+    Key key = entity.getKey();
+    if(key.getName() != null) {
+      writer.name("name").value(key.getName());
+    } else {
+      writer.name("id").value(key.getId());
+    }
+    writer.name("properties").beginObject();
+    for (Map.Entry<String, Object> property : entity.getProperties().entrySet()) {
+      Object value = property.getValue();
+      writer.name(property.getKey());
+      if(value == null) {
+        writer.nullValue();
+      } else if(value instanceof Boolean) {
+        writer.value((boolean) value);
+      } else if(value instanceof Long || value instanceof Integer) {
+        writer.value(((Number) value).longValue());
+      } else if(value instanceof Double || value instanceof Float) {
+        writer.value(((Number) value).doubleValue());
+      } else {
+        writer.value(value.toString());
+      }
+    }
+    writer.endObject();
+    writer.endObject();
+    writer.flush();
+  }
+
+  private static Entity readEntity(String line, int lineNumber) {
+    try {
+      JsonReader reader = new JsonReader(new StringReader(line));
+      String kind = null;
+      String name = null;
+      long id = 0;
+      Map<String, Object> properties = null;
+      reader.beginObject();
+      while (reader.hasNext()) {
+        switch (reader.nextName()) {
+          case "kind":
+            kind = reader.nextString();
+            break;
+          case "name":
+            name = reader.nextString();
+            break;
+          case "id":
+            id = reader.nextLong();
+            break;
+          case "properties":
+            properties = readProperties(reader);
+            break;
+          default:
+            reader.skipValue();
+        }
+      }
+      reader.endObject();
+
+      checkKind(kind);
+      if(properties == null || (name == null) == (id <= 0)) {
+        throw new IllegalArgumentException("needs properties and exactly one of a name or a positive id");
+      }
+      Entity entity = new Entity(name != null ? KeyFactory.createKey(kind, name) : KeyFactory.createKey(kind, id));
+      for (Map.Entry<String, Object> property : properties.entrySet()) {
+        entity.setProperty(property.getKey(), property.getValue());
+      }
+      if("Comment".equals(kind) && properties.containsKey("moderation-state")) {
+        // An indexed timestamp-ms marks a legacy visible Comment, see DatastoreCommentStore
+        entity.setUnindexedProperty("timestamp-ms", properties.get("timestamp-ms"));
+      }
+      return entity;
+    } catch (IOException | IllegalStateException | NumberFormatException e) {
+      throw new IllegalArgumentException("Malformed entity on line " + lineNumber, e);
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Invalid entity on line " + lineNumber + ": " + e.getMessage(), e);
+    }
+  }
+
+  private static Map<String, Object> readProperties(JsonReader reader) throws IOException {
+    Map<String, Object> properties = new LinkedHashMap<>();
+    reader.beginObject();
+    while (reader.hasNext()) {
+      String name = reader.nextName();
+      JsonToken token = reader.peek();
+      if(token == JsonToken.NULL) {
+        reader.nextNull();
+        properties.put(name, null);
+      } else if(token == JsonToken.BOOLEAN) {
+        properties.put(name, reader.nextBoolean());
+      } else if(token == JsonToken.NUMBER) {
+        String number = reader.nextString();
+        boolean isWhole = number.indexOf('.') < 0 && number.indexOf('e') < 0 && number.indexOf('E') < 0;
+        properties.put(name, isWhole ? (Object) Long.parseLong(number) : (Object) Double.parseDouble(number));
+      } else {
+        properties.put(name, reader.nextString());
+      }
+    }
+    reader.endObject();
+    return properties;
+  }
+
+  private static void checkKind(String kind) {
+    if(!KINDS.contains(kind)) {
+      throw new IllegalArgumentException("Kind must be one of " + KINDS + ", not " + kind);
+    }
+  }
+}
@@ -0,0 +1,19 @@
+package com.google.sps.storage;
+
+import lombok.Getter;
+
+/**
+ * The persisted version of the comment feed at one moment
+ */
+@Getter
+public class FeedVersion {
+  // Grows by at least one with every change of the feed
+  private final long version;
+  // When the feed last changed, 0 if it never changed
+  private final long lastModifiedMs;
+
+  public FeedVersion(long version, long lastModifiedMs) {
+    this.version = version;
+    this.lastModifiedMs = lastModifiedMs;
+  }
+}
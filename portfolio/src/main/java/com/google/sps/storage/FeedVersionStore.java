@@ -0,0 +1,18 @@
+package com.google.sps.storage;
+
+/**
+ * Version of the comment feed kept next to the CommentStore, so every instance reads the same version
+ * Writers advance it after each change visible in the feed, so a version read after the change reflects it
+ */
+public interface FeedVersionStore {
+
+  /**
+   * Records that the feed changed now
+   */
+  void advance();
+
+  /**
+   * Returns the current version of the feed
+   */
+  FeedVersion read();
+}
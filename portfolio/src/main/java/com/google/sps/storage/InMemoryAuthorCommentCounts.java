@@ -0,0 +1,44 @@
+package com.google.sps.storage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * AuthorCommentCounts kept in this process, for local development and tests
+ * Each author's count is a LongAdder, which already spreads concurrent changes over cells like shards
+ */
+public class InMemoryAuthorCommentCounts implements AuthorCommentCounts {
+  private final Map<String, LongAdder> counts = new ConcurrentHashMap<>();
+
+  @Override
+  public void increment(String authorId, long amount) {
+    counts.computeIfAbsent(authorId, unused -> new LongAdder()).add(amount);
+  }
+
+  @Override
+  public void decrement(String authorId, long amount) {
+    counts.computeIfAbsent(authorId, unused -> new LongAdder()).add(-amount);
+  }
+
+  @Override
+  public long getCount(String authorId) {
+    LongAdder count = counts.get(authorId);
+    return count == null ? 0 : count.sum();
+  }
+
+  @Override
+  public List<AuthorCount> getTopAuthors(int limit) {
+    List<AuthorCount> authorCounts = new ArrayList<>(counts.size());
+    for (Map.Entry<String, LongAdder> count : counts.entrySet()) {
+      long commentCount = count.getValue().sum();
+      if(commentCount > 0) {
+        authorCounts.add(new AuthorCount(count.getKey(), commentCount));
+      }
+    }
+    authorCounts.sort(AuthorCount::compareByCountDescending);
+    return authorCounts.subList(0, Math.min(limit, authorCounts.size()));
+  }
+}
@@ -0,0 +1,259 @@
+package com.google.sps.storage;
+
+import com.google.sps.entities.Comment;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * CommentStore keeping Comments in process memory with lock free reads, for local deployments and load tests
+ * Comments are kept in a concurrent skip list ordered by visibleMs, then id to order Comments shown together
+ * Cursors are the visibleMs and id of the last Comment of a page
+ * Pending Comments are kept apart by id until they are made visible
+ * Changes to a visible Comment run under its id's lock in the by id map and update the skip list with it,
+ *   so concurrent changes of the same Comment never undo each other
+ * Comments are lost when the instance stops
+ */
+public class InMemoryCommentStore implements CommentStore {
+  private final ConcurrentSkipListMap<OrderKey, Comment> comments = new ConcurrentSkipListMap<>();
+  private final Map<Long, Comment> commentsById = new ConcurrentHashMap<>();
+  private final Map<Long, Comment> pendingComments = new ConcurrentHashMap<>();
+  private final AtomicLong nextId = new AtomicLong(1);
+
+  @Override
+  public void append(List<Comment> newComments) {
+    for (Comment comment : newComments) {
+      comment.setId(nextId.getAndIncrement());
+      if(comment.isPending()) {
+        pendingComments.put(comment.getId(), comment);
+      } else {
+        if(comment.getVisibleMs() == 0) {
+          comment.setVisibleMs(comment.getTimestampMs());
+        }
+        addVisible(comment);
+      }
+    }
+  }
+
+  @Override
+  public List<Comment> makeVisible(List<Comment> approvedComments) {
+    long nowMs = System.currentTimeMillis();
+    List<Comment> visibleComments = new ArrayList<>(approvedComments.size());
+    for (Comment comment : approvedComments) {
+      // Moving the Comment under the same id's lock as renames and deletes stops them missing it in between
+      boolean[] madeVisible = new boolean[1];
+      commentsById.compute(comment.getId(), (id, visibleComment) -> {
+        Comment pendingComment = pendingComments.remove(id);
+        if(pendingComment == null) {
+          return visibleComment;
+        }
+        // The held Comment may have been renamed since it was given to append
+        Comment approvedComment = pendingComment.toBuilder().visibleMs(nowMs).pending(false).build();
+        comments.put(new OrderKey(approvedComment.getVisibleMs(), id), approvedComment);
+        madeVisible[0] = true;
+        return approvedComment;
+      });
+      if(madeVisible[0]) {
+        comment.setVisibleMs(nowMs);
+        comment.setPending(false);
+        visibleComments.add(comment);
+      }
+    }
+    return visibleComments;
+  }
+
+  @Override
+  public void delete(List<Comment> deletedComments) {
+    for (Comment comment : deletedComments) {
+      pendingComments.remove(comment.getId());
+      commentsById.computeIfPresent(comment.getId(), (id, visibleComment) -> {
+        comments.remove(new OrderKey(visibleComment.getVisibleMs(), id));
+        return null;
+      });
+    }
+  }
+
+  @Override
+  public List<Comment> getPending(long postedBeforeMs, int limit) {
+    List<Comment> stalePending = new ArrayList<>();
+    for (Comment comment : pendingComments.values()) {
+      if(stalePending.size() == limit) {
+        break;
+      }
+      if(comment.getTimestampMs() < postedBeforeMs) {
+        stalePending.add(comment.toBuilder().build());
+      }
+    }
+    return stalePending;
+  }
+
+  private void addVisible(Comment comment) {
+    commentsById.compute(comment.getId(), (id, unused) -> {
+      comments.put(new OrderKey(comment.getVisibleMs(), id), comment);
+      return comment;
+    });
+  }
+
+  @Override
+  public CommentPage getNewest(int pageSize, String cursor) {
+    NavigableMap<OrderKey, Comment> newestFirst = comments.descendingMap();
+    if(cursor != null) {
+      newestFirst = newestFirst.tailMap(OrderKey.fromCursor(cursor), false);
+    }
+    return new MapPage(newestFirst, pageSize);
+  }
+
+  @Override
+  public CommentPage getRange(long startMs, long endMs, int pageSize, String cursor) {
+    if(startMs >= endMs) {
+      return new MapPage(new ConcurrentSkipListMap<>(), pageSize);
+    }
+    NavigableMap<OrderKey, Comment> range = comments.subMap(
+        new OrderKey(startMs, Long.MIN_VALUE), true, new OrderKey(endMs, Long.MIN_VALUE), false);
+    if(cursor != null) {
+      range = range.tailMap(OrderKey.fromCursor(cursor), false);
+    }
+    return new MapPage(range, pageSize);
+  }
+
+  @Override
+  public List<Comment> getByIds(List<Long> ids) {
+    List<Comment> found = new ArrayList<>(ids.size());
+    for (long id : ids) {
+      Comment comment = commentsById.get(id);
+      if(comment != null) {
+        found.add(comment);
+      }
+    }
+    return found;
+  }
+
+  @Override
+  public void updateAuthorName(String authorId, String authorName, long nameVersion) {
+    // Comments are replaced rather than modified so concurrent readers never see a partial update
+    for (long id : pendingComments.keySet()) {
+      pendingComments.computeIfPresent(id, (unused, comment) -> renamed(comment, authorId, authorName, nameVersion));
+    }
+    // Renaming under the id's lock stops a concurrent delete being undone, the skip list is updated with it
+    for (long id : commentsById.keySet()) {
+      commentsById.computeIfPresent(id, (unused, comment) -> {
+        Comment renamedComment = renamed(comment, authorId, authorName, nameVersion);
+        if(renamedComment != comment) {
+          comments.replace(new OrderKey(comment.getVisibleMs(), id), comment, renamedComment);
+        }
+        return renamedComment;
+      });
+    }
+  }
+
+  /**
+   * Returns a copy of comment with authorName if it was written by authorId and has an older copy of the name,
+   *   otherwise comment itself
+   */
+  private static Comment renamed(Comment comment, String authorId, String authorName, long nameVersion) {
+    if(!authorId.equals(comment.getAuthorId()) || comment.getAuthorNameVersion() >= nameVersion) {
+      return comment;
+    }
+    return comment.toBuilder().authorName(authorName).authorNameVersion(nameVersion).build();
+  }
+
+  /**
+   * Comments kept in memory are never in an older layout
+   */
+  @Override
+  public int upgradeLegacyComments(int limit) {
+    return 0;
+  }
+
+  @Override
+  public long getLatestTimestampMs() {
+    Map.Entry<OrderKey, Comment> newest = comments.lastEntry();
+    return newest == null ? 0 : newest.getKey().visibleMs;
+  }
+
+  /**
+   * A page of at most pageSize Comments read in order from a view of the skip list
+   */
+  private static class MapPage implements CommentPage {
+    private final Iterator<Map.Entry<OrderKey, Comment>> entries;
+    private final int pageSize;
+    private int commentCount = 0;
+    private OrderKey lastKey = null;
+
+    private MapPage(NavigableMap<OrderKey, Comment> view, int pageSize) {
+      this.entries = view.entrySet().iterator();
+      this.pageSize = pageSize;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return commentCount < pageSize && entries.hasNext();
+    }
+
+    @Override
+    public Comment next() {
+      Map.Entry<OrderKey, Comment> entry = entries.next();
+      commentCount++;
+      lastKey = entry.getKey();
+      return entry.getValue();
+    }
+
+    @Override
+    public String getNextCursor() {
+      if(commentCount < pageSize || !entries.hasNext()) {
+        return null;
+      }
+      return lastKey.toCursor();
+    }
+  }
+
+  /**
+   * Skip list key ordering Comments by visibleMs, then by id
+   */
+  private static class OrderKey implements Comparable<OrderKey> {
+    private final long visibleMs;
+    private final long id;
+
+    private OrderKey(long visibleMs, long id) {
+      this.visibleMs = visibleMs;
+      this.id = id;
+    }
+
+    private String toCursor() {
+      return visibleMs + "-" + id;
+    }
+
+    /**
+     * Throws IllegalArgumentException if cursor wasn't made by toCursor
+     */
+    private static OrderKey fromCursor(String cursor) {
+      int separator = cursor.indexOf('-', 1);
+      if(separator < 0) {
+        throw new IllegalArgumentException("Malformed cursor " + cursor);
+      }
+      return new OrderKey(
+          Long.parseLong(cursor.substring(0, separator)), Long.parseLong(cursor.substring(separator + 1)));
+    }
+
+    @Override
+    public int compareTo(OrderKey other) {
+      int visibleOrder = Long.compare(visibleMs, other.visibleMs);
+      return visibleOrder != 0 ? visibleOrder : Long.compare(id, other.id);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof OrderKey && compareTo((OrderKey) other) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+      return Long.hashCode(visibleMs) ^ Long.hashCode(id);
+    }
+  }
+}
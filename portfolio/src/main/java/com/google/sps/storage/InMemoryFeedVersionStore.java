@@ -0,0 +1,19 @@
+package com.google.sps.storage;
+
+/**
+ * FeedVersionStore kept in this process, for local development and tests
+ */
+public class InMemoryFeedVersionStore implements FeedVersionStore {
+  private volatile FeedVersion feedVersion = new FeedVersion(0, 0);
+
+  @Override
+  public synchronized void advance() {
+    feedVersion = new FeedVersion(feedVersion.getVersion() + 1,
+        Math.max(System.currentTimeMillis(), feedVersion.getLastModifiedMs()));
+  }
+
+  @Override
+  public FeedVersion read() {
+    return feedVersion;
+  }
+}
@@ -0,0 +1,87 @@
+package com.google.sps.utils;
+
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In process fan out of published messages to every current Subscription
+ * Each Subscription buffers at most queueCapacity messages, a Subscription whose buffer is full
+ *   when a message is published is dropped rather than stalling the publisher
+ */
+public class Broadcaster<T> {
+  private final int queueCapacity;
+  private final Set<Subscription<T>> subscriptions = ConcurrentHashMap.newKeySet();
+
+  public Broadcaster(int queueCapacity) {
+    this.queueCapacity = queueCapacity;
+  }
+
+  /**
+   * Creates a Subscription receiving every message published from now on
+   * onMessage is run on the publishing thread after each message is queued and when the Subscription is dropped
+   */
+  public Subscription<T> subscribe(Runnable onMessage) {
+    Subscription<T> subscription = new Subscription<>(this, queueCapacity, onMessage);
+    subscriptions.add(subscription);
+    return subscription;
+  }
+
+  /**
+   * Queues message on every Subscription, dropping those with a full queue
+   */
+  public void publish(T message) {
+    for(Subscription<T> subscription : subscriptions) {
+      if(!subscription.queue.offer(message)) {
+        subscription.dropped = true;
+        subscriptions.remove(subscription);
+      }
+      subscription.onMessage.run();
+    }
+  }
+
+  /**
+   * Returns the number of current Subscriptions
+   */
+  public int getSubscriptionCount() {
+    return subscriptions.size();
+  }
+
+  /**
+   * A subscriber's bounded queue of published messages
+   */
+  public static class Subscription<T> {
+    private final Broadcaster<T> broadcaster;
+    private final BlockingQueue<T> queue;
+    private final Runnable onMessage;
+    private volatile boolean dropped = false;
+
+    private Subscription(Broadcaster<T> broadcaster, int queueCapacity, Runnable onMessage) {
+      this.broadcaster = broadcaster;
+      this.queue = new ArrayBlockingQueue<>(queueCapacity);
+      this.onMessage = onMessage;
+    }
+
+    /**
+     * Removes and returns the oldest queued message, null if no message is queued
+     */
+    public T poll() {
+      return queue.poll();
+    }
+
+    /**
+     * Returns true iff this Subscription was dropped for falling too far behind
+     */
+    public boolean isDropped() {
+      return dropped;
+    }
+
+    /**
+     * Stops receiving messages, already queued messages can still be polled
+     */
+    public void cancel() {
+      broadcaster.subscriptions.remove(this);
+    }
+  }
+}
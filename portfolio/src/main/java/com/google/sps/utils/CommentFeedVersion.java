@@ -0,0 +1,77 @@
+package com.google.sps.utils;
+
+import com.google.sps.storage.FeedVersion;
+import com.google.sps.storage.FeedVersionStore;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Cheap version marker of the comment feed, used to answer conditional GETs without querying comments
+ * The marker is kept in a FeedVersionStore shared by every instance, every write visible in the feed advances it
+ *   after the write, so renames, approvals and imports made on any instance change the ETag everywhere
+ * HTTP dates only have second precision, so Last-Modified is the end of the second the feed last changed in
+ *   and is only given once that second is over, a later change then always has a later Last-Modified
+ */
+public class CommentFeedVersion {
+  private static final Logger logger = Logger.getLogger(CommentFeedVersion.class.getName());
+
+  private final FeedVersionStore feedVersionStore;
+
+  public CommentFeedVersion(FeedVersionStore feedVersionStore) {
+    this.feedVersionStore = feedVersionStore;
+  }
+
+  /**
+   * Returns the current ETag and Last-Modified of the feed, read together so they always agree
+   */
+  public Snapshot getSnapshot() {
+    FeedVersion feedVersion = feedVersionStore.read();
+    long lastModifiedMs = 0;
+    if(feedVersion.getLastModifiedMs() > 0) {
+      long endOfSecondMs = (feedVersion.getLastModifiedMs() / 1000 + 1) * 1000;
+      if(System.currentTimeMillis() >= endOfSecondMs) {
+        lastModifiedMs = endOfSecondMs;
+      }
+    }
+    return new Snapshot("\"" + feedVersion.getVersion() + "\"", lastModifiedMs);
+  }
+
+  /**
+   * Records that the feed changed, must be called after the change is stored
+   * A failure is logged rather than thrown, as the change itself is already stored
+   */
+  public void recordChange() {
+    try {
+      feedVersionStore.advance();
+    } catch (RuntimeException e) {
+      logger.log(Level.WARNING, "Failed to advance the comment feed version", e);
+    }
+  }
+
+  /**
+   * The version of the feed at one moment
+   */
+  public static class Snapshot {
+    private final String eTag;
+    private final long lastModifiedMs;
+
+    private Snapshot(String eTag, long lastModifiedMs) {
+      this.eTag = eTag;
+      this.lastModifiedMs = lastModifiedMs;
+    }
+
+    /**
+     * Returns a strong HTTP ETag which changes whenever the comment feed changes
+     */
+    public String getETag() {
+      return eTag;
+    }
+
+    /**
+     * Returns a whole second after the feed last changed, 0 if it is unknown or still within that second
+     */
+    public long getLastModifiedMs() {
+      return lastModifiedMs;
+    }
+  }
+}
@@ -0,0 +1,61 @@
+package com.google.sps.utils;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.google.sps.entities.Comment;
+import java.io.IOException;
+
+/**
+ * Reads and writes Comments as Json without reflection, writing the same fields as Gson's default serialization
+ * Null fields are skipped, transient fields are never written
+ */
+public class CommentTypeAdapter extends TypeAdapter<Comment> {
+
+  @Override
+  public void write(JsonWriter writer, Comment comment) throws IOException {
+    if(comment == null) {
+      writer.nullValue();
+      return;
+    }
+    writer.beginObject();
+    if(comment.getAuthorName() != null) {
+      writer.name("authorName").value(comment.getAuthorName());
+    }
+    if(comment.getCommentText() != null) {
+      writer.name("commentText").value(comment.getCommentText());
+    }
+    writer.name("timestampMs").value(comment.getTimestampMs());
+    writer.name("visibleMs").value(comment.getVisibleMs());
+    writer.endObject();
+  }
+
+  @Override
+  public Comment read(JsonReader reader) throws IOException {
+    if(reader.peek() == JsonToken.NULL) {
+      reader.nextNull();
+      return null;
+    }
+    Comment.CommentBuilder comment = Comment.builder();
+    reader.beginObject();
+    while (reader.hasNext()) {
+      String name = reader.nextName();
+      if(reader.peek() == JsonToken.NULL) {
+        reader.nextNull();
+      } else if("authorName".equals(name)) {
+        comment.authorName(reader.nextString());
+      } else if("commentText".equals(name)) {
+        comment.commentText(reader.nextString());
+      } else if("timestampMs".equals(name)) {
+        comment.timestampMs(reader.nextLong());
+      } else if("visibleMs".equals(name)) {
+        comment.visibleMs(reader.nextLong());
+      } else {
+        reader.skipValue();
+      }
+    }
+    reader.endObject();
+    return comment.build();
+  }
+}
@@ -0,0 +1,105 @@
+package com.google.sps.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread safe in memory cache holding at most maxSize entries, each for at most timeToLiveMs
+ * When full, the least recently used entry is evicted to make room for a new one
+ * Hit and miss counts are kept for every get
+ */
+public class ExpiringCache<K, V> {
+  private final int maxSize;
+  private final long timeToLiveMs;
+  private final Map<K, CacheEntry<V>> entries;
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+
+  public ExpiringCache(int maxSize, long timeToLiveMs) {
+    this.maxSize = maxSize;
+    this.timeToLiveMs = timeToLiveMs;
+    // Access ordered so the eldest entry is always the least recently used
+    this.entries = new LinkedHashMap<K, CacheEntry<V>>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<K, CacheEntry<V>> eldest) {
+        return size() > ExpiringCache.this.maxSize;
+      }
+    };
+  }
+
+  /**
+   * Returns the cached value for key, or null if key isn't cached or its entry has expired
+   */
+  public V get(K key) {
+    CacheEntry<V> entry;
+    synchronized (entries) {
+      entry = entries.get(key);
+      if(entry != null && entry.expiresAtMs <= System.currentTimeMillis()) {
+        entries.remove(key);
+        entry = null;
+      }
+    }
+    if(entry == null) {
+      missCount.incrementAndGet();
+      return null;
+    }
+    hitCount.incrementAndGet();
+    return entry.value;
+  }
+
+  /**
+   * Caches value for key, replacing any previously cached value
+   */
+  public void put(K key, V value) {
+    CacheEntry<V> entry = new CacheEntry<>(value, System.currentTimeMillis() + timeToLiveMs);
+    synchronized (entries) {
+      entries.put(key, entry);
+    }
+  }
+
+  /**
+   * Removes any cached value for key, the next get for key will be a miss
+   */
+  public void invalidate(K key) {
+    synchronized (entries) {
+      entries.remove(key);
+    }
+  }
+
+  /**
+   * Removes every cached value
+   */
+  public void clear() {
+    synchronized (entries) {
+      entries.clear();
+    }
+  }
+
+  /**
+   * Returns the number of entries currently held, including expired entries not yet removed
+   */
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  private static class CacheEntry<V> {
+    private final V value;
+    private final long expiresAtMs;
+
+    private CacheEntry(V value, long expiresAtMs) {
+      this.value = value;
+      this.expiresAtMs = expiresAtMs;
+    }
+  }
+}
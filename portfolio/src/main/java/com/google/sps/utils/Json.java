@@ -0,0 +1,43 @@
+package com.google.sps.utils;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.sps.entities.Comment;
+import java.util.Map;
+
+/**
+ * The Gson instance and hand written TypeAdapters shared by every servlet
+ * Gson and the adapters are thread safe, so one instance of each is used for the whole process
+ */
+public class Json {
+  private static final TypeAdapter<Comment> commentAdapter = new CommentTypeAdapter();
+  private static final TypeAdapter<Map<String, Object>> userPropertiesAdapter = new UserPropertiesTypeAdapter();
+  private static final Gson gson = new GsonBuilder()
+      .registerTypeAdapter(Comment.class, commentAdapter)
+      .create();
+
+  /**
+   * Returns the shared Gson, which serializes Comments with the CommentTypeAdapter
+   */
+  public static Gson getGson() {
+    return gson;
+  }
+
+  /**
+   * Returns the adapter for Comments, using it directly skips Gson's adapter lookup for each Comment
+   */
+  public static TypeAdapter<Comment> getCommentAdapter() {
+    return commentAdapter;
+  }
+
+  /**
+   * Returns the adapter for a User Entity's property map
+   */
+  public static TypeAdapter<Map<String, Object>> getUserPropertiesAdapter() {
+    return userPropertiesAdapter;
+  }
+
+  private Json() {
+  }
+}
@@ -0,0 +1,99 @@
+package com.google.sps.utils;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thread safe token bucket rate limiter with one bucket per key
+ * Each bucket holds at most burstSize tokens and gains tokensPerSecond tokens every second, each action takes one
+ * At most maxKeys buckets are kept, buckets which have refilled completely are evicted as keeping them changes nothing
+ */
+public class RateLimiter {
+  private static final long EVICTION_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private final double burstSize;
+  private final double tokensPerNano;
+  private final int maxKeys;
+  private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+  private volatile long lastEvictionNanos = System.nanoTime() - EVICTION_INTERVAL_NANOS;
+
+  public RateLimiter(int burstSize, double tokensPerSecond, int maxKeys) {
+    this.burstSize = burstSize;
+    this.tokensPerNano = tokensPerSecond / TimeUnit.SECONDS.toNanos(1);
+    this.maxKeys = maxKeys;
+  }
+
+  /**
+   * Takes a token from key's bucket if one is available
+   * Returns 0 if the action is allowed, otherwise the number of milliseconds until a token will be available
+   * If maxKeys keys are already limited, actions of new keys are refused until some buckets are evicted
+   */
+  public long tryAcquire(String key) {
+    long nowNanos = System.nanoTime();
+    TokenBucket bucket = buckets.get(key);
+    if(bucket == null) {
+      if(buckets.size() >= maxKeys) {
+        evictFullBuckets(nowNanos);
+        if(buckets.size() >= maxKeys) {
+          return millisPerToken();
+        }
+      }
+      bucket = buckets.computeIfAbsent(key, unused -> new TokenBucket(burstSize, nowNanos));
+    }
+    return bucket.tryAcquire(nowNanos);
+  }
+
+  /**
+   * Removes every bucket which has refilled completely, at most once per EVICTION_INTERVAL_NANOS
+   */
+  private void evictFullBuckets(long nowNanos) {
+    if(nowNanos - lastEvictionNanos < EVICTION_INTERVAL_NANOS) {
+      return;
+    }
+    lastEvictionNanos = nowNanos;
+    Iterator<TokenBucket> bucketIterator = buckets.values().iterator();
+    while (bucketIterator.hasNext()) {
+      if(bucketIterator.next().isFull(nowNanos)) {
+        bucketIterator.remove();
+      }
+    }
+  }
+
+  private long millisPerToken() {
+    return (long) Math.ceil(1 / tokensPerNano / TimeUnit.MILLISECONDS.toNanos(1));
+  }
+
+  private class TokenBucket {
+    private double tokens;
+    private long refilledAtNanos;
+
+    private TokenBucket(double tokens, long nowNanos) {
+      this.tokens = tokens;
+      this.refilledAtNanos = nowNanos;
+    }
+
+    private synchronized long tryAcquire(long nowNanos) {
+      refill(nowNanos);
+      if(tokens >= 1) {
+        tokens--;
+        return 0;
+      }
+      double missingNanos = (1 - tokens) / tokensPerNano;
+      return Math.max(1, (long) Math.ceil(missingNanos / TimeUnit.MILLISECONDS.toNanos(1)));
+    }
+
+    private synchronized boolean isFull(long nowNanos) {
+      refill(nowNanos);
+      return tokens >= burstSize;
+    }
+
+    private void refill(long nowNanos) {
+      if(nowNanos > refilledAtNanos) {
+        tokens = Math.min(burstSize, tokens + (nowNanos - refilledAtNanos) * tokensPerNano);
+        refilledAtNanos = nowNanos;
+      }
+    }
+  }
+}
@@ -1,9 +1,10 @@
 package com.google.sps.utils;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 /**
- * Utility class to get information from HTTP Requests
+ * Utility class to get information from HTTP Requests and to answer them
  */
 public class Requests {
 
@@ -19,12 +20,38 @@ public class Requests {
     }
   }
 
+  /**
+   * Returns the value of an integer paramater from a HTTP request if present.
+   * If the request doesn't contain a value for the requested paramater, return a default value
+   * Throws NumberFormatException if the paramater's value is not an integer
+   */
+  public static int getIntParameter(HttpServletRequest request, String parameterName, int defaultValue){
+    if(hasParameterValue(request, parameterName)) {
+      return Integer.parseInt(request.getParameter(parameterName));
+    } else {
+      return defaultValue;
+    }
+  }
+
+  /**
+   * Returns the value of a long integer paramater from a HTTP request if present.
+   * If the request doesn't contain a value for the requested paramater, return a default value
+   * Throws NumberFormatException if the paramater's value is not an integer
+   */
+  public static long getLongParameter(HttpServletRequest request, String parameterName, long defaultValue){
+    if(hasParameterValue(request, parameterName)) {
+      return Long.parseLong(request.getParameter(parameterName));
+    } else {
+      return defaultValue;
+    }
+  }
+
   /**
    * Returns true iff the request contains the parameter parameterName, its value is ignored
    */
   public static boolean hasParameter(HttpServletRequest request, String parameterName) {
     String parameterValue = request.getParameter(parameterName);
-    return parameterValue == null;
+    return parameterValue != null;
   }
 
   /**
@@ -33,4 +60,44 @@ public class Requests {
   public static boolean hasParameterValue(HttpServletRequest request, String parameterName) {
     return hasParameter(request,parameterName) && !"".equals(request.getParameter(parameterName));
   }
+
+  /**
+   * Returns true iff the request is a conditional GET whose cached copy is still current
+   * If-None-Match is compared against eTag, only if it is absent is If-Modified-Since compared against lastModifiedMs
+   * A lastModifiedMs of 0 means unknown, so If-Modified-Since never matches it
+   * lastModifiedMs must be a whole second, as HTTP dates only have second precision
+   */
+  public static boolean isNotModified(HttpServletRequest request, String eTag, long lastModifiedMs) {
+    String ifNoneMatch = request.getHeader("If-None-Match");
+    if(ifNoneMatch != null) {
+      for(String requestETag : ifNoneMatch.split(",")) {
+        requestETag = requestETag.trim();
+        if(requestETag.startsWith("W/")) {
+          requestETag = requestETag.substring(2);
+        }
+        if("*".equals(requestETag) || eTag.equals(requestETag)) {
+          return true;
+        }
+      }
+      return false;
+    }
+    if(lastModifiedMs <= 0) {
+      return false;
+    }
+    long ifModifiedSinceMs;
+    try {
+      ifModifiedSinceMs = request.getDateHeader("If-Modified-Since");
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+    return ifModifiedSinceMs != -1 && ifModifiedSinceMs >= lastModifiedMs;
+  }
+
+  /**
+   * Sets response to HTTP 429 Too Many Requests with a Retry-After header for the given wait, rounded up to seconds
+   */
+  public static void setTooManyRequests(HttpServletResponse response, long retryAfterMs) {
+    response.setStatus(429);
+    response.setHeader("Retry-After", Long.toString((retryAfterMs + 999) / 1000));
+  }
 }
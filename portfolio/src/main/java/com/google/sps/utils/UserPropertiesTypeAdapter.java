@@ -0,0 +1,52 @@
+package com.google.sps.utils;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reads and writes a User Entity's property map as a flat Json object without reflection
+ * User properties are Strings, any other non-null value is written as its String form
+ */
+public class UserPropertiesTypeAdapter extends TypeAdapter<Map<String, Object>> {
+
+  @Override
+  public void write(JsonWriter writer, Map<String, Object> properties) throws IOException {
+    if(properties == null) {
+      writer.nullValue();
+      return;
+    }
+    writer.beginObject();
+    for(Map.Entry<String, Object> property : properties.entrySet()) {
+      Object value = property.getValue();
+      if(value != null) {
+        writer.name(property.getKey()).value(value.toString());
+      }
+    }
+    writer.endObject();
+  }
+
+  @Override
+  public Map<String, Object> read(JsonReader reader) throws IOException {
+    if(reader.peek() == JsonToken.NULL) {
+      reader.nextNull();
+      return null;
+    }
+    Map<String, Object> properties = new LinkedHashMap<>();
+    reader.beginObject();
+    while (reader.hasNext()) {
+      String name = reader.nextName();
+      if(reader.peek() == JsonToken.NULL) {
+        reader.nextNull();
+      } else {
+        properties.put(name, reader.nextString());
+      }
+    }
+    reader.endObject();
+    return properties;
+  }
+}
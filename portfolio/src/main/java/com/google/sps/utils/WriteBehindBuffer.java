@@ -0,0 +1,88 @@
+package com.google.sps.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bounded buffer of items which are stored in the background in batches
+ * A batch is stored once batchSize items are buffered or every flushIntervalMs, whichever comes first
+ * offer returns false when the buffer is full so callers can push back on their clients
+ */
+public class WriteBehindBuffer<T> {
+  private static final Logger logger = Logger.getLogger(WriteBehindBuffer.class.getName());
+
+  private final int batchSize;
+  private final BlockingQueue<T> buffer;
+  private final Consumer<List<T>> store;
+  private final Consumer<List<T>> onStored;
+  private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "write-behind-flusher");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  /**
+   * store is called on the flushing thread with every batch of items, a batch is retried if store throws
+   * onStored is then called with every batch once it is stored
+   */
+  public WriteBehindBuffer(int capacity, int batchSize, long flushIntervalMs,
+      Consumer<List<T>> store, Consumer<List<T>> onStored) {
+    this.batchSize = batchSize;
+    this.buffer = new ArrayBlockingQueue<>(capacity);
+    this.store = store;
+    this.onStored = onStored;
+    flusher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Buffers item to be stored, returns false without buffering it if the buffer is full
+   */
+  public boolean offer(T item) {
+    if(!buffer.offer(item)) {
+      return false;
+    }
+    if(buffer.size() >= batchSize) {
+      flusher.execute(this::flush);
+    }
+    return true;
+  }
+
+  /**
+   * Stores every buffered item then stops flushing, items offered afterwards are never stored
+   */
+  public void close() {
+    flusher.shutdown();
+    flush();
+  }
+
+  /**
+   * Stores buffered items in batches of at most batchSize until the buffer is empty
+   * A batch which fails to store is returned to the buffer to be retried by the next flush
+   */
+  private synchronized void flush() {
+    List<T> batch = new ArrayList<>(batchSize);
+    while (buffer.drainTo(batch, batchSize) > 0) {
+      try {
+        store.accept(batch);
+      } catch (RuntimeException e) {
+        logger.log(Level.WARNING, "Failed to store a batch of " + batch.size() + " items, retrying later", e);
+        for(T item : batch) {
+          if(!buffer.offer(item)) {
+            logger.severe("Write behind buffer is full, dropped item " + item);
+          }
+        }
+        return;
+      }
+      onStored.accept(batch);
+      batch = new ArrayList<>(batchSize);
+    }
+  }
+}
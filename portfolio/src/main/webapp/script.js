@@ -12,6 +12,8 @@
 // See the License for the specific language governing permissions and
 // limitations under the License.
 
+const COMMENT_PAGE_SIZE = 20;
+
 /**
  * Defines getCurrentUser.cachedUser by fetching the current user from UserInformationServlet.
  * If the user is not logged in, the fetch will have a 400 response code and the cachedUser will be defined as null
@@ -90,28 +92,87 @@ function addRandomProject() {
 }
 
 /**
- * Adds all comments to the page
+ * Adds the next page of comments to the page, newest comments first
+ * Hides the more-comments button once every comment has been added
  */
 async function addComments() {
-  response = await fetch('/data');
-  comments = await response.json();
-  comments.forEach(addComment);
+  let url = `/data?page-size=${COMMENT_PAGE_SIZE}`;
+  if(addComments.cursor !== undefined){
+    url += `&cursor=${encodeURIComponent(addComments.cursor)}`;
+  }
+  response = await fetch(url);
+  page = await response.json();
+  page.comments.forEach(addComment);
+  addComments.loaded = true;
+  addComments.cursor = page.cursor;
+  if(page.cursor === undefined){
+    document.getElementById('more-comments').style.display = "none";
+  }
+}
+
+/**
+ * Adds every comment made visible since the newest comment on the page to the top of the page
+ * Only the delta is fetched, using the since-ms parameter
+ * Does nothing until the first page has loaded, if that page was empty every comment is new
+ */
+async function addNewComments() {
+  if(!addComments.loaded){
+    return;
+  }
+  // Fixed before paging, as cursors only continue the same query
+  const sinceMs = addComment.newestVisibleMs === undefined ? 0 : addComment.newestVisibleMs;
+  let cursor;
+  do {
+    let url = `/data?page-size=${COMMENT_PAGE_SIZE}&since-ms=${sinceMs}`;
+    if(cursor !== undefined){
+      url += `&cursor=${encodeURIComponent(cursor)}`;
+    }
+    response = await fetch(url);
+    page = await response.json();
+    // Deltas are sorted oldest to newest, so each comment goes above the previous one
+    page.comments.forEach(comment => addComment(comment, true));
+    cursor = page.cursor;
+  } while(cursor !== undefined);
 }
 
 /**
- * Adds one comment to the page
+ * Adds each new comment to the top of the page as it is posted, using the server-sent comment stream
+ * Whenever the stream (re)connects, comments posted while it was disconnected are fetched as a delta
  */
-function addComment(comment) {
-  const commentContainer = document.getElementById('comments');
+function streamNewComments() {
+  const commentStream = new EventSource('/data/stream');
+  commentStream.onopen = addNewComments;
+  commentStream.onmessage = event => {
+    const comment = JSON.parse(event.data);
+    if(addComment.newestVisibleMs === undefined || comment.visibleMs > addComment.newestVisibleMs){
+      addComment(comment, true);
+    }
+  };
+}
+
+/**
+ * Adds one comment to the page, at the top of the comments if atTop is true and otherwise at the bottom
+ */
+function addComment(comment, atTop = false) {
+  const commentContainer = document.getElementById('comment-list');
+  const commentElement = document.createElement("div");
   commentTextElement = document.createElement("p");
   commentMetaDataElement = document.createElement("p");
   commentMetaDataElement.className = "small-text";
 
   commentMetaDataElement.innerText = getCommentMetaData(comment);
   commentTextElement.innerText = comment.commentText;
-  commentContainer.appendChild(commentTextElement);
-  commentContainer.appendChild(commentMetaDataElement);
-  commentContainer.appendChild(document.createElement("hr"));
+  commentElement.appendChild(commentTextElement);
+  commentElement.appendChild(commentMetaDataElement);
+  commentElement.appendChild(document.createElement("hr"));
+  if(atTop){
+    commentContainer.insertBefore(commentElement, commentContainer.firstChild);
+  } else {
+    commentContainer.appendChild(commentElement);
+  }
+  if(addComment.newestVisibleMs === undefined || comment.visibleMs > addComment.newestVisibleMs){
+    addComment.newestVisibleMs = comment.visibleMs;
+  }
 }
 
 function getCommentMetaData(comment) {
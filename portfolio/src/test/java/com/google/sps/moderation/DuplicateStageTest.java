@@ -0,0 +1,68 @@
+package com.google.sps.moderation;
+
+import com.google.sps.entities.Comment;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class DuplicateStageTest {
+  private static final String AUTHOR_A = "author-a";
+  private static final String AUTHOR_B = "author-b";
+  private static final long WINDOW_MS = 60 * 1000;
+
+  @Test
+  public void rejectsSameTextFromSameAuthor() {
+    DuplicateStage stage = new DuplicateStage(100, WINDOW_MS);
+
+    Assert.assertNull(stage.check(comment(1, AUTHOR_A, "hello there")));
+    Assert.assertEquals("duplicate of a recent comment", stage.check(comment(2, AUTHOR_A, "hello there")));
+  }
+
+  @Test
+  public void ignoresCaseAndWhitespace() {
+    DuplicateStage stage = new DuplicateStage(100, WINDOW_MS);
+
+    Assert.assertNull(stage.check(comment(1, AUTHOR_A, "hello there")));
+    Assert.assertNotNull(stage.check(comment(2, AUTHOR_A, "  HELLO \n\t there ")));
+  }
+
+  @Test
+  public void passesSameTextFromAnotherAuthor() {
+    DuplicateStage stage = new DuplicateStage(100, WINDOW_MS);
+
+    Assert.assertNull(stage.check(comment(1, AUTHOR_A, "hello there")));
+    Assert.assertNull(stage.check(comment(2, AUTHOR_B, "hello there")));
+  }
+
+  @Test
+  public void passesDifferentText() {
+    DuplicateStage stage = new DuplicateStage(100, WINDOW_MS);
+
+    Assert.assertNull(stage.check(comment(1, AUTHOR_A, "hello there")));
+    Assert.assertNull(stage.check(comment(2, AUTHOR_A, "hello again")));
+  }
+
+  @Test
+  public void passesSameCommentWhenRetried() {
+    DuplicateStage stage = new DuplicateStage(100, WINDOW_MS);
+
+    Assert.assertNull(stage.check(comment(1, AUTHOR_A, "hello there")));
+    Assert.assertNull(stage.check(comment(1, AUTHOR_A, "hello there")));
+  }
+
+  @Test
+  public void passesSameTextAfterWindow() throws InterruptedException {
+    DuplicateStage stage = new DuplicateStage(100, 10);
+
+    Assert.assertNull(stage.check(comment(1, AUTHOR_A, "hello there")));
+    Thread.sleep(20);
+    Assert.assertNull(stage.check(comment(2, AUTHOR_A, "hello there")));
+  }
+
+  private static Comment comment(long id, String authorId, String commentText) {
+    return Comment.builder().id(id).authorId(authorId).commentText(commentText).build();
+  }
+}
@@ -0,0 +1,39 @@
+package com.google.sps.moderation;
+
+import com.google.sps.entities.Comment;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class LengthStageTest {
+  private final LengthStage stage = new LengthStage(2, 5);
+
+  @Test
+  public void passesTextWithinBounds() {
+    Assert.assertNull(stage.check(comment("ab")));
+    Assert.assertNull(stage.check(comment("abcde")));
+  }
+
+  @Test
+  public void rejectsShortText() {
+    Assert.assertEquals("shorter than 2 characters", stage.check(comment("a")));
+  }
+
+  @Test
+  public void rejectsLongText() {
+    Assert.assertEquals("longer than 5 characters", stage.check(comment("abcdef")));
+  }
+
+  @Test
+  public void ignoresSurroundingWhitespace() {
+    Assert.assertNull(stage.check(comment("   abcde   ")));
+    Assert.assertEquals("shorter than 2 characters", stage.check(comment("  a  ")));
+  }
+
+  private static Comment comment(String commentText) {
+    return Comment.builder().commentText(commentText).build();
+  }
+}
@@ -0,0 +1,78 @@
+package com.google.sps.moderation;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class TermMatcherTest {
+
+  @Test
+  public void findsTermAsWholeWord() {
+    TermMatcher matcher = new TermMatcher(Arrays.asList("spam"));
+
+    Assert.assertEquals("spam", matcher.findFirst("buy spam now"));
+    Assert.assertEquals("spam", matcher.findFirst("spam"));
+    Assert.assertEquals("spam", matcher.findFirst("(spam)!"));
+  }
+
+  @Test
+  public void ignoresTermInsideLongerWord() {
+    TermMatcher matcher = new TermMatcher(Arrays.asList("spam"));
+
+    Assert.assertNull(matcher.findFirst("spammer"));
+    Assert.assertNull(matcher.findFirst("antispam"));
+    Assert.assertNull(matcher.findFirst("spam2"));
+  }
+
+  @Test
+  public void ignoresCase() {
+    TermMatcher matcher = new TermMatcher(Arrays.asList("SpAm"));
+
+    Assert.assertEquals("spam", matcher.findFirst("SPAM here"));
+  }
+
+  @Test
+  public void findsWholeWordAfterPartialMatchOfLongerTerm() {
+    // "spammer" fails part way through, the failure link must still find "spam" as a whole word
+    TermMatcher matcher = new TermMatcher(Arrays.asList("spammer", "spam"));
+
+    Assert.assertEquals("spam", matcher.findFirst("spam me"));
+    Assert.assertEquals("spammer", matcher.findFirst("a spammer"));
+  }
+
+  @Test
+  public void findsTermEndingInsideAnotherTerm() {
+    // "hell" inside "shell" is only reached through a failure link, and is still not a whole word there
+    TermMatcher matcher = new TermMatcher(Arrays.asList("shell", "hell"));
+
+    Assert.assertEquals("hell", matcher.findFirst("what the hell"));
+    Assert.assertNull(matcher.findFirst("shello"));
+  }
+
+  @Test
+  public void returnsFirstTermInText() {
+    TermMatcher matcher = new TermMatcher(Arrays.asList("beta", "alpha"));
+
+    Assert.assertEquals("alpha", matcher.findFirst("alpha then beta"));
+  }
+
+  @Test
+  public void skipsBlankTerms() {
+    TermMatcher matcher = new TermMatcher(Arrays.asList("", "  ", " spam "));
+
+    Assert.assertNull(matcher.findFirst("nothing to see"));
+    Assert.assertEquals("spam", matcher.findFirst("some spam"));
+  }
+
+  @Test
+  public void matchesNothingWithoutTerms() {
+    TermMatcher matcher = new TermMatcher(Collections.emptyList());
+
+    Assert.assertNull(matcher.findFirst("anything at all"));
+  }
+}
@@ -0,0 +1,73 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Finds the same meeting times as {@link FindMeetingQuery} by marking busy minutes in a
+ * {@link MinuteMask}. Each event or attendee costs a few word operations however long the day's
+ * calendar is, which suits requests with many attendees.
+ */
+public final class BitsetMeetingQuery {
+  /**
+   * Returns the same ranges as {@link FindMeetingQuery#query(Collection, MeetingRequest)}, with
+   * the busy minutes of the attendees and of everyone marked in two masks in the same pass.
+   */
+  public Collection<TimeRange> query(Collection<Event> events, MeetingRequest request) {
+    Collection<String> attendees = request.getAttendees();
+    Collection<String> optionalAttendees = request.getOptionalAttendees();
+    MinuteMask attendeesBusy = new MinuteMask();
+    MinuteMask optionalAttendeesBusy = new MinuteMask();
+    for (Event event : events) {
+      if (!Collections.disjoint(event.getAttendees(), attendees)) {
+        attendeesBusy.add(event.getWhen());
+      } else if (!Collections.disjoint(event.getAttendees(), optionalAttendees)) {
+        optionalAttendeesBusy.add(event.getWhen());
+      }
+    }
+    return findFreeRanges(attendeesBusy, optionalAttendeesBusy, request);
+  }
+
+  /**
+   * Returns the same ranges as {@link #query(Collection, MeetingRequest)} for the events in
+   * {@code index}, combining the masks the index has already built for the requested people.
+   */
+  public Collection<TimeRange> query(EventIndex index, MeetingRequest request) {
+    MinuteMask attendeesBusy = new MinuteMask();
+    for (String attendee : request.getAttendees()) {
+      attendeesBusy.addAll(index.getBusyMinutes(attendee));
+    }
+    MinuteMask optionalAttendeesBusy = new MinuteMask();
+    for (String optionalAttendee : request.getOptionalAttendees()) {
+      optionalAttendeesBusy.addAll(index.getBusyMinutes(optionalAttendee));
+    }
+    return findFreeRanges(attendeesBusy, optionalAttendeesBusy, request);
+  }
+
+  private static Collection<TimeRange> findFreeRanges(
+      MinuteMask attendeesBusy, MinuteMask optionalAttendeesBusy, MeetingRequest request) {
+    MinuteMask everyoneBusy = new MinuteMask();
+    everyoneBusy.addAll(attendeesBusy);
+    everyoneBusy.addAll(optionalAttendeesBusy);
+    List<TimeRange> everyoneFreeRanges = everyoneBusy.findFreeRanges(request.getDuration());
+    if (!everyoneFreeRanges.isEmpty() || request.getAttendees().isEmpty()) {
+      return everyoneFreeRanges;
+    }
+    return attendeesBusy.findFreeRanges(request.getDuration());
+  }
+}
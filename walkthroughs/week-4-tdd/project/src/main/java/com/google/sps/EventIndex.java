@@ -0,0 +1,98 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index from each attendee to the times they are busy, built once from a calendar of events so
+ * that queries only read the data of the attendees they ask about. Indexes are read-only once
+ * built and can be shared between threads.
+ */
+public final class EventIndex {
+  private static final TimeRange[] NO_RANGES = new TimeRange[0];
+  private static final MinuteMask NO_MINUTES = new MinuteMask();
+
+  // Each attendee's busy ranges, sorted by start with overlapping and touching ranges merged.
+  private final Map<String, TimeRange[]> busyRangesByAttendee = new HashMap<>();
+  // The same busy times as one bit per minute of the day, for {@link BitsetMeetingQuery}.
+  private final Map<String, MinuteMask> busyMinutesByAttendee = new HashMap<>();
+
+  /**
+   * Creates an index of {@code events}, which must be non-null.
+   */
+  public EventIndex(Collection<Event> events) {
+    Map<String, List<TimeRange>> rangesByAttendee = new HashMap<>();
+    for (Event event : events) {
+      for (String attendee : event.getAttendees()) {
+        rangesByAttendee
+            .computeIfAbsent(attendee, unused -> new ArrayList<>())
+            .add(event.getWhen());
+      }
+    }
+    for (Map.Entry<String, List<TimeRange>> ranges : rangesByAttendee.entrySet()) {
+      TimeRange[] busyRanges = merge(ranges.getValue());
+      MinuteMask busyMinutes = new MinuteMask();
+      for (TimeRange busyRange : busyRanges) {
+        busyMinutes.add(busyRange);
+      }
+      busyRangesByAttendee.put(ranges.getKey(), busyRanges);
+      busyMinutesByAttendee.put(ranges.getKey(), busyMinutes);
+    }
+  }
+
+  /**
+   * Returns the ranges in which {@code attendee} is busy, sorted by start and not overlapping or
+   * touching each other. The returned array must not be modified.
+   */
+  TimeRange[] getBusyRanges(String attendee) {
+    return busyRangesByAttendee.getOrDefault(attendee, NO_RANGES);
+  }
+
+  /**
+   * Returns the minutes of the day in which {@code attendee} is busy. The returned mask must not
+   * be modified.
+   */
+  MinuteMask getBusyMinutes(String attendee) {
+    return busyMinutesByAttendee.getOrDefault(attendee, NO_MINUTES);
+  }
+
+  private static TimeRange[] merge(List<TimeRange> ranges) {
+    ranges.sort(TimeRange.ORDER_BY_START);
+    List<TimeRange> merged = new ArrayList<>(ranges.size());
+    int start = 0;
+    int end = -1;
+    for (TimeRange range : ranges) {
+      if (range.duration() <= 0) {
+        continue;
+      }
+      if (range.start() > end) {
+        if (end >= 0) {
+          merged.add(TimeRange.fromStartEnd(start, end, false));
+        }
+        start = range.start();
+      }
+      end = Math.max(end, range.end());
+    }
+    if (end >= 0) {
+      merged.add(TimeRange.fromStartEnd(start, end, false));
+    }
+    return merged.toArray(NO_RANGES);
+  }
+}
@@ -14,10 +14,238 @@
 
 package com.google.sps;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
+/**
+ * Finds the times of day when the people requested for a meeting are free for the whole meeting.
+ */
 public final class FindMeetingQuery {
+  /**
+   * How a query picks ranges when not every optional attendee can come.
+   */
+  public enum Mode {
+    /**
+     * Ranges free for every optional attendee, or if there are none, ranges free for only the
+     * attendees.
+     */
+    ALL_OPTIONAL_ATTENDEES_OR_NONE,
+
+    /**
+     * Ranges free for the attendees in which a meeting fits the most optional attendees.
+     */
+    MOST_OPTIONAL_ATTENDEES
+  }
+
+  private final Mode mode;
+
+  public FindMeetingQuery() {
+    this(Mode.ALL_OPTIONAL_ATTENDEES_OR_NONE);
+  }
+
+  public FindMeetingQuery(Mode mode) {
+    this.mode = mode;
+  }
+
+  /**
+   * Returns every range of the day, sorted by start, in which none of the request's attendees or
+   * optional attendees are busy and which is at least as long as the request's duration. If there
+   * are no such ranges, returns the ranges in which only the attendees are free instead, unless the
+   * request has no attendees. Events without any of the request's people are ignored.
+   *
+   * <p>The busy ranges are sorted once and swept in order, finding both sets of ranges in the same
+   * pass, so a query over n events takes O(n log n) time.
+   *
+   * <p>In {@link Mode#MOST_OPTIONAL_ATTENDEES} mode, returns the ranges in which the attendees are
+   * free and a meeting fits the most optional attendees instead, found as described by
+   * {@link OptionalAttendeeSweep}. Ranges may then overlap, and if no optional attendee fits and
+   * there are no attendees, none are returned.
+   */
   public Collection<TimeRange> query(Collection<Event> events, MeetingRequest request) {
-    throw new UnsupportedOperationException("TODO: Implement this method.");
+    if (mode == Mode.MOST_OPTIONAL_ATTENDEES) {
+      return queryMostOptionalAttendees(events, request);
+    }
+    Collection<String> attendees = request.getAttendees();
+    Collection<String> optionalAttendees = request.getOptionalAttendees();
+    List<BusyRange> busyRanges = new ArrayList<>();
+    for (Event event : events) {
+      if (!Collections.disjoint(event.getAttendees(), attendees)) {
+        busyRanges.add(new BusyRange(event.getWhen(), true));
+      } else if (!Collections.disjoint(event.getAttendees(), optionalAttendees)) {
+        busyRanges.add(new BusyRange(event.getWhen(), false));
+      }
+    }
+    return findFreeRanges(busyRanges, request);
+  }
+
+  /**
+   * Returns the same ranges as {@link #query(Collection, MeetingRequest)} for the events in
+   * {@code index}. Only the requested people's busy ranges are read, so the query's cost depends on
+   * the size of the request rather than the size of the calendar.
+   */
+  public Collection<TimeRange> query(EventIndex index, MeetingRequest request) {
+    if (mode == Mode.MOST_OPTIONAL_ATTENDEES) {
+      return queryMostOptionalAttendees(index, request);
+    }
+    Collection<String> attendees = request.getAttendees();
+    List<BusyRange> busyRanges = new ArrayList<>();
+    for (String attendee : attendees) {
+      for (TimeRange busyRange : index.getBusyRanges(attendee)) {
+        busyRanges.add(new BusyRange(busyRange, true));
+      }
+    }
+    for (String optionalAttendee : request.getOptionalAttendees()) {
+      if (!attendees.contains(optionalAttendee)) {
+        for (TimeRange busyRange : index.getBusyRanges(optionalAttendee)) {
+          busyRanges.add(new BusyRange(busyRange, false));
+        }
+      }
+    }
+    return findFreeRanges(busyRanges, request);
+  }
+
+  private static Collection<TimeRange> queryMostOptionalAttendees(
+      Collection<Event> events, MeetingRequest request) {
+    Collection<String> attendees = request.getAttendees();
+    List<TimeRange> attendeesBusyRanges = new ArrayList<>();
+    Map<String, List<TimeRange>> optionalBusyRanges = new HashMap<>();
+    for (String optionalAttendee : request.getOptionalAttendees()) {
+      if (!attendees.contains(optionalAttendee)) {
+        optionalBusyRanges.put(optionalAttendee, new ArrayList<>());
+      }
+    }
+    for (Event event : events) {
+      if (!Collections.disjoint(event.getAttendees(), attendees)) {
+        attendeesBusyRanges.add(event.getWhen());
+      }
+      for (String attendee : event.getAttendees()) {
+        List<TimeRange> busyRanges = optionalBusyRanges.get(attendee);
+        if (busyRanges != null) {
+          busyRanges.add(event.getWhen());
+        }
+      }
+    }
+    List<TimeRange> freeRanges =
+        findAttendeesFreeRanges(attendeesBusyRanges, request.getDuration());
+    return OptionalAttendeeSweep.findBestRanges(freeRanges, optionalBusyRanges.values(),
+        request.getDuration(), !attendees.isEmpty());
+  }
+
+  private static Collection<TimeRange> queryMostOptionalAttendees(
+      EventIndex index, MeetingRequest request) {
+    Collection<String> attendees = request.getAttendees();
+    List<TimeRange> attendeesBusyRanges = new ArrayList<>();
+    for (String attendee : attendees) {
+      Collections.addAll(attendeesBusyRanges, index.getBusyRanges(attendee));
+    }
+    List<List<TimeRange>> optionalBusyRanges = new ArrayList<>();
+    for (String optionalAttendee : request.getOptionalAttendees()) {
+      if (!attendees.contains(optionalAttendee)) {
+        optionalBusyRanges.add(Arrays.asList(index.getBusyRanges(optionalAttendee)));
+      }
+    }
+    List<TimeRange> freeRanges =
+        findAttendeesFreeRanges(attendeesBusyRanges, request.getDuration());
+    return OptionalAttendeeSweep.findBestRanges(freeRanges, optionalBusyRanges,
+        request.getDuration(), !attendees.isEmpty());
+  }
+
+  /**
+   * Returns the gaps of the day between {@code busyRanges}, which may be in any order, that are at
+   * least {@code duration} minutes long.
+   */
+  private static List<TimeRange> findAttendeesFreeRanges(
+      List<TimeRange> busyRanges, long duration) {
+    busyRanges.sort(TimeRange.ORDER_BY_START);
+    FreeRanges freeRanges = new FreeRanges(duration);
+    for (TimeRange busyRange : busyRanges) {
+      freeRanges.addBusy(busyRange);
+    }
+    return freeRanges.finish();
+  }
+
+  /**
+   * Sweeps {@code busyRanges} once in order of start, tracking the free ranges of everyone and of
+   * only the attendees together, then picks between them as described by
+   * {@link #query(Collection, MeetingRequest)}. Each person's busy ranges are sorted runs, which
+   * the sort merges in close to linear time.
+   */
+  private static Collection<TimeRange> findFreeRanges(
+      List<BusyRange> busyRanges, MeetingRequest request) {
+    busyRanges.sort(BusyRange.ORDER_BY_START);
+    FreeRanges everyoneFree = new FreeRanges(request.getDuration());
+    FreeRanges attendeesFree = new FreeRanges(request.getDuration());
+    for (BusyRange busyRange : busyRanges) {
+      everyoneFree.addBusy(busyRange.when);
+      if (busyRange.mandatory) {
+        attendeesFree.addBusy(busyRange.when);
+      }
+    }
+    List<TimeRange> everyoneFreeRanges = everyoneFree.finish();
+    if (!everyoneFreeRanges.isEmpty() || request.getAttendees().isEmpty()) {
+      return everyoneFreeRanges;
+    }
+    return attendeesFree.finish();
+  }
+
+  /**
+   * A range in which someone requested for the meeting is busy, {@code mandatory} if that someone
+   * is one of the request's attendees rather than only an optional attendee.
+   */
+  private static final class BusyRange {
+    static final Comparator<BusyRange> ORDER_BY_START =
+        Comparator.comparing(busyRange -> busyRange.when, TimeRange.ORDER_BY_START);
+
+    final TimeRange when;
+    final boolean mandatory;
+
+    BusyRange(TimeRange when, boolean mandatory) {
+      this.when = when;
+      this.mandatory = mandatory;
+    }
+  }
+
+  /**
+   * Collects the gaps of the day between busy ranges which are at least {@code duration} minutes
+   * long. Busy ranges must be added in order of start but may overlap or nest. Ranges without any
+   * duration contain no time, so they don't split a gap.
+   */
+  private static final class FreeRanges {
+    private final long duration;
+    private final List<TimeRange> ranges = new ArrayList<>();
+    // Everything before freeStart is either busy or already part of a free range.
+    private int freeStart = TimeRange.START_OF_DAY;
+
+    FreeRanges(long duration) {
+      this.duration = duration;
+    }
+
+    void addBusy(TimeRange busyRange) {
+      if (busyRange.duration() <= 0) {
+        return;
+      }
+      addIfLongEnough(busyRange.start());
+      freeStart = Math.max(freeStart, busyRange.end());
+    }
+
+    /**
+     * Returns the free ranges, sorted by start, once every busy range has been added.
+     */
+    List<TimeRange> finish() {
+      addIfLongEnough(TimeRange.WHOLE_DAY.end());
+      return ranges;
+    }
+
+    private void addIfLongEnough(int freeEnd) {
+      if (freeEnd > freeStart && freeEnd - freeStart >= duration) {
+        ranges.add(TimeRange.fromStartEnd(freeStart, freeEnd, false));
+      }
+    }
   }
 }
@@ -24,6 +24,9 @@ public final class MeetingRequest {
   // All the people that should be attending this new meeting. Use a set to avoid duplicates.
   private final Collection<String> attendees = new HashSet<>();
 
+  // The people who should attend this new meeting if they can. Use a set to avoid duplicates.
+  private final Collection<String> optionalAttendees = new HashSet<>();
+
   // The duration of the meeting in minutes.
   private final long duration;
 
@@ -32,6 +35,12 @@ public final class MeetingRequest {
     this.attendees.addAll(attendees);
   }
 
+  public MeetingRequest(
+      Collection<String> attendees, Collection<String> optionalAttendees, long duration) {
+    this(attendees, duration);
+    this.optionalAttendees.addAll(optionalAttendees);
+  }
+
   /**
    * Returns a read-only copy of the people who are required to attend this meeting.
    */
@@ -39,6 +48,18 @@ public final class MeetingRequest {
     return Collections.unmodifiableCollection(attendees);
   }
 
+  /**
+   * Returns a read-only copy of the people who should attend this meeting if they can.
+   */
+  public Collection<String> getOptionalAttendees() {
+    // Gson creates requests without running a constructor, so a request read from JSON without
+    // optional attendees has no set.
+    if (optionalAttendees == null) {
+      return Collections.emptySet();
+    }
+    return Collections.unmodifiableCollection(optionalAttendees);
+  }
+
   /**
    * Returns the duration of the meeting in minutes.
    */
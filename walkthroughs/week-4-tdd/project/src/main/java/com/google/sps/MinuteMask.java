@@ -0,0 +1,120 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Set of the minutes of one day, one bit per minute in a fixed array of longs. Whole words of 64
+ * minutes are combined and scanned at once, so unions and searches for free time take a handful of
+ * word operations rather than one step per event or per minute.
+ */
+final class MinuteMask {
+  static final int MINUTES = TimeRange.WHOLE_DAY.duration();
+  private static final int WORD_COUNT = (MINUTES + 63) / 64;
+
+  private final long[] words = new long[WORD_COUNT];
+
+  /**
+   * Adds every minute of {@code range} which falls within the day.
+   */
+  void add(TimeRange range) {
+    int start = Math.max(range.start(), 0);
+    int end = Math.min(range.end(), MINUTES);
+    if (start >= end) {
+      return;
+    }
+    int startWord = start >>> 6;
+    int endWord = (end - 1) >>> 6;
+    // Shifts only use the low 6 bits, so these select the bits from start and before end in their
+    // words.
+    long startMask = -1L << start;
+    long endMask = -1L >>> -end;
+    if (startWord == endWord) {
+      words[startWord] |= startMask & endMask;
+      return;
+    }
+    words[startWord] |= startMask;
+    for (int word = startWord + 1; word < endWord; word++) {
+      words[word] = -1L;
+    }
+    words[endWord] |= endMask;
+  }
+
+  /**
+   * Adds every minute of {@code other}.
+   */
+  void addAll(MinuteMask other) {
+    for (int word = 0; word < WORD_COUNT; word++) {
+      words[word] |= other.words[word];
+    }
+  }
+
+  /**
+   * Returns the runs of minutes not in this mask which are at least {@code duration} minutes long,
+   * sorted by start.
+   */
+  List<TimeRange> findFreeRanges(long duration) {
+    List<TimeRange> freeRanges = new ArrayList<>();
+    int freeStart = nextFree(0);
+    while (freeStart < MINUTES) {
+      int freeEnd = nextBusy(freeStart);
+      if (freeEnd - freeStart >= duration) {
+        freeRanges.add(TimeRange.fromStartEnd(freeStart, freeEnd, false));
+      }
+      freeStart = nextFree(freeEnd);
+    }
+    return freeRanges;
+  }
+
+  /**
+   * Returns the first minute from {@code from} which is in this mask, or {@code MINUTES} if none.
+   */
+  private int nextBusy(int from) {
+    if (from >= MINUTES) {
+      return MINUTES;
+    }
+    int word = from >>> 6;
+    long bits = words[word] & (-1L << from);
+    while (bits == 0) {
+      if (++word == WORD_COUNT) {
+        return MINUTES;
+      }
+      bits = words[word];
+    }
+    return Math.min(word * 64 + Long.numberOfTrailingZeros(bits), MINUTES);
+  }
+
+  /**
+   * Returns the first minute from {@code from} which is not in this mask, or {@code MINUTES} if
+   * none.
+   */
+  private int nextFree(int from) {
+    if (from >= MINUTES) {
+      return MINUTES;
+    }
+    int word = from >>> 6;
+    long bits = ~words[word] & (-1L << from);
+    while (bits == 0) {
+      if (++word == WORD_COUNT) {
+        return MINUTES;
+      }
+      bits = ~words[word];
+    }
+    // Bits past the end of the day are never set, so they read as free and must be cut off.
+    return Math.min(word * 64 + Long.numberOfTrailingZeros(bits), MINUTES);
+  }
+}
@@ -0,0 +1,173 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Finds where a meeting fits the most optional attendees with a sweep over the points where
+ * optional attendees become busy or free, rather than by trying subsets of optional attendees.
+ *
+ * <p>A meeting of duration d starting at minute t misses an optional attendee exactly when one of
+ * their busy ranges [s, e) overlaps [t, t + d), which is when s - d < t < e. Each busy range
+ * therefore blocks the starts [s - d + 1, e). Blocked starts are merged per attendee so that no
+ * attendee is counted twice, then one sweep over the ends of every blocked range keeps a running
+ * count of the optional attendees a meeting starting at each minute would miss. With n busy ranges
+ * this takes O(n log n) time however many optional attendees there are.
+ */
+final class OptionalAttendeeSweep {
+  private OptionalAttendeeSweep() {}
+
+  /**
+   * Returns the ranges, sorted by start, within {@code freeRanges} in which a meeting of
+   * {@code duration} misses the fewest optional attendees. Every meeting placed anywhere within a
+   * returned range misses that fewest number, so two returned ranges overlap when meetings placed
+   * between them would miss more. {@code freeRanges} must be sorted by start and not overlap, and
+   * {@code optionalBusyRanges} has the busy ranges of each optional attendee, in any order.
+   *
+   * <p>If there are optional attendees but every meeting would miss all of them, and
+   * {@code hasAttendees} is false, nobody could come, so no ranges are returned.
+   */
+  static List<TimeRange> findBestRanges(List<TimeRange> freeRanges,
+      Collection<? extends Collection<TimeRange>> optionalBusyRanges, long duration,
+      boolean hasAttendees) {
+    List<TimeRange> bestRanges = new ArrayList<>();
+    if (freeRanges.isEmpty()) {
+      return bestRanges;
+    }
+    // Meetings are placed on whole minutes, so a meeting shorter than a minute blocks like one.
+    int minutes = (int) Math.max(1, Math.min(duration, TimeRange.WHOLE_DAY.duration()));
+
+    List<Run> runs = findMissedCounts(freeRanges, blockedStartPoints(optionalBusyRanges, minutes),
+        minutes);
+    int fewestMissed = Integer.MAX_VALUE;
+    for (Run run : runs) {
+      fewestMissed = Math.min(fewestMissed, run.missed);
+    }
+    if (!hasAttendees && fewestMissed > 0 && fewestMissed == optionalBusyRanges.size()) {
+      return bestRanges;
+    }
+
+    Run best = null;
+    for (Run run : runs) {
+      if (run.missed != fewestMissed) {
+        continue;
+      }
+      if (best != null && best.endStart == run.startStart) {
+        best.endStart = run.endStart;
+        continue;
+      }
+      if (best != null) {
+        bestRanges.add(best.toMeetingRange(minutes));
+      }
+      best = run;
+    }
+    bestRanges.add(best.toMeetingRange(minutes));
+    return bestRanges;
+  }
+
+  /**
+   * Returns the sorted points where each optional attendee's merged blocked starts begin and end.
+   * A point is its minute shifted left once, with the low bit set where blocked starts begin.
+   */
+  private static long[] blockedStartPoints(
+      Collection<? extends Collection<TimeRange>> optionalBusyRanges, int minutes) {
+    List<Long> points = new ArrayList<>();
+    for (Collection<TimeRange> busyRanges : optionalBusyRanges) {
+      TimeRange[] sortedRanges = busyRanges.toArray(new TimeRange[0]);
+      Arrays.sort(sortedRanges, TimeRange.ORDER_BY_START);
+      int blockedStart = 0;
+      int blockedEnd = -1;
+      for (TimeRange busyRange : sortedRanges) {
+        if (busyRange.duration() <= 0) {
+          continue;
+        }
+        int start = Math.max(busyRange.start() - minutes + 1, 0);
+        if (start > blockedEnd) {
+          addBlockedStarts(points, blockedStart, blockedEnd);
+          blockedStart = start;
+        }
+        blockedEnd = Math.max(blockedEnd, busyRange.end());
+      }
+      addBlockedStarts(points, blockedStart, blockedEnd);
+    }
+    long[] sortedPoints = new long[points.size()];
+    for (int i = 0; i < sortedPoints.length; i++) {
+      sortedPoints[i] = points.get(i);
+    }
+    Arrays.sort(sortedPoints);
+    return sortedPoints;
+  }
+
+  private static void addBlockedStarts(List<Long> points, int start, int end) {
+    if (end > start) {
+      points.add(((long) start << 1) | 1);
+      points.add((long) end << 1);
+    }
+  }
+
+  /**
+   * Sweeps the blocked start points and the starts allowed by {@code freeRanges} together,
+   * returning the allowed starts split into runs which miss the same number of optional attendees.
+   */
+  private static List<Run> findMissedCounts(
+      List<TimeRange> freeRanges, long[] points, int minutes) {
+    List<Run> runs = new ArrayList<>();
+    int pointIndex = 0;
+    int missed = 0;
+    for (TimeRange freeRange : freeRanges) {
+      // A meeting starting at or after endStart would run past the end of the free range.
+      int start = freeRange.start();
+      int endStart = freeRange.end() - minutes + 1;
+      while (start < endStart) {
+        while (pointIndex < points.length && (points[pointIndex] >> 1) <= start) {
+          missed += (points[pointIndex] & 1) == 1 ? 1 : -1;
+          pointIndex++;
+        }
+        int nextChange = pointIndex < points.length ? (int) (points[pointIndex] >> 1) : endStart;
+        int end = Math.min(nextChange, endStart);
+        runs.add(new Run(start, end, missed));
+        start = end;
+      }
+    }
+    return runs;
+  }
+
+  /**
+   * Consecutive meeting starts [startStart, endStart) which miss the same number of optional
+   * attendees.
+   */
+  private static final class Run {
+    final int startStart;
+    int endStart;
+    final int missed;
+
+    Run(int startStart, int endStart, int missed) {
+      this.startStart = startStart;
+      this.endStart = endStart;
+      this.missed = missed;
+    }
+
+    /**
+     * Returns the range covered by every meeting starting in this run.
+     */
+    TimeRange toMeetingRange(int minutes) {
+      return TimeRange.fromStartEnd(startStart, endStart - 1 + minutes, false);
+    }
+  }
+}
@@ -24,9 +24,15 @@ function sendMeetingRequest() {
   // split it into an array of names
   const attendees = attendeesNamesString.split(/\s*,\s*/);
 
+  // optional attendees are also comma-separated, and may be left empty
+  const optionalAttendees = document.getElementById('optional-attendees').value
+      .split(/\s*,\s*/)
+      .filter((name) => name.length > 0);
+
   // Create the request to send to the server using the data we collected from
   // the web form.
-  const meetingRequest = new MeetingRequest(duration, attendees);
+  const meetingRequest =
+      new MeetingRequest(duration, attendees, optionalAttendees);
 
   queryServer(meetingRequest).then((timeRanges) => {
     updateResultsOnPage(timeRanges);
@@ -87,9 +93,10 @@ function timeToString(totalMinutes) {
  * Request for possible meeting times.
  */
 class MeetingRequest {
-  constructor(duration, attendees) {
+  constructor(duration, attendees, optionalAttendees) {
     this.duration = duration;
     this.attendees = attendees;
+    this.optionalAttendees = optionalAttendees;
   }
 }
 
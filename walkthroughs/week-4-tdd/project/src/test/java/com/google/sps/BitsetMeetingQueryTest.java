@@ -0,0 +1,124 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class BitsetMeetingQueryTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0830AM = TimeRange.getTimeInMinutes(8, 30);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_0930AM = TimeRange.getTimeInMinutes(9, 30);
+
+  private static final int DURATION_30_MINUTES = 30;
+
+  private BitsetMeetingQuery query;
+
+  @Before
+  public void setUp() {
+    query = new BitsetMeetingQuery();
+  }
+
+  @Test
+  public void noEvents() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    Collection<TimeRange> actual = query.query(Collections.emptySet(), request);
+
+    Assert.assertEquals(Arrays.asList(TimeRange.WHOLE_DAY), actual);
+  }
+
+  @Test
+  public void everyAttendeeIsConsidered() {
+    // Events  :       |--A--|     |--B--|
+    // Day     : |-----------------------------|
+    // Options : |--1--|     |--2--|     |--3--|
+
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_B)));
+
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_0830AM, TIME_0900AM, false),
+            TimeRange.fromStartEnd(TIME_0930AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, query.query(events, request));
+    Assert.assertEquals(expected, query.query(new EventIndex(events), request));
+  }
+
+  @Test
+  public void eventsOnWordBoundaries() {
+    // Minutes 63, 64 and 127 sit either side of the boundaries between the mask's words.
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(63, 65, false), Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(127, 128, false), Arrays.asList(PERSON_A)),
+        new Event("Event 3", TimeRange.fromStartEnd(1400, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_A)));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), 1);
+
+    Collection<TimeRange> expected = Arrays.asList(TimeRange.fromStartEnd(0, 63, false),
+        TimeRange.fromStartEnd(65, 127, false), TimeRange.fromStartEnd(128, 1400, false));
+
+    Assert.assertEquals(expected, query.query(events, request));
+  }
+
+  @Test
+  public void matchesSweepOnRandomCalendars() {
+    List<String> people = Arrays.asList("P0", "P1", "P2", "P3", "P4", "P5");
+    FindMeetingQuery sweepQuery = new FindMeetingQuery();
+    Random random = new Random(42);
+
+    for (int calendar = 0; calendar < 200; calendar++) {
+      List<Event> events = new ArrayList<>();
+      for (int i = 0; i < 20; i++) {
+        int start = random.nextInt(TimeRange.WHOLE_DAY.duration());
+        int duration = random.nextInt(Math.min(180, TimeRange.WHOLE_DAY.end() - start) + 1);
+        events.add(new Event("Event " + i, TimeRange.fromStartDuration(start, duration),
+            people.subList(random.nextInt(people.size()), people.size())));
+      }
+      // Some of the people are attendees, some of the rest optional attendees.
+      int attendeeCount = random.nextInt(people.size());
+      int optionalEnd = attendeeCount + random.nextInt(people.size() - attendeeCount + 1);
+      MeetingRequest request = new MeetingRequest(people.subList(0, attendeeCount),
+          people.subList(attendeeCount, optionalEnd), random.nextInt(120) + 1);
+
+      Collection<TimeRange> expected = sweepQuery.query(events, request);
+      Assert.assertEquals(expected, query.query(events, request));
+      Assert.assertEquals(expected, query.query(new EventIndex(events), request));
+    }
+  }
+}
@@ -0,0 +1,110 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class EventIndexTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0830AM = TimeRange.getTimeInMinutes(8, 30);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_0930AM = TimeRange.getTimeInMinutes(9, 30);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+
+  @Test
+  public void mergesOverlappingAndTouchingRanges() {
+    // Events  : |--A--|
+    //              |--A--|--A--|      |--A--|
+    // Busy    : |--------------|      |--A--|
+
+    EventIndex index = new EventIndex(Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0900AM, TIME_0930AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 3", TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 4", TimeRange.fromStartEnd(TIME_0830AM, TIME_0900AM, false),
+            Arrays.asList(PERSON_A))));
+
+    TimeRange[] expected = {TimeRange.fromStartEnd(TIME_0800AM, TIME_0930AM, false),
+        TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM, false)};
+
+    Assert.assertArrayEquals(expected, index.getBusyRanges(PERSON_A));
+  }
+
+  @Test
+  public void indexesEveryAttendeeOfAnEvent() {
+    TimeRange when = TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES);
+    EventIndex index = new EventIndex(
+        Arrays.asList(new Event("Event 1", when, Arrays.asList(PERSON_A, PERSON_B))));
+
+    Assert.assertArrayEquals(new TimeRange[] {when}, index.getBusyRanges(PERSON_A));
+    Assert.assertArrayEquals(new TimeRange[] {when}, index.getBusyRanges(PERSON_B));
+    Assert.assertArrayEquals(new TimeRange[0], index.getBusyRanges(PERSON_C));
+  }
+
+  @Test
+  public void queryMatchesQueryOverEvents() {
+    // Person C isn't requested, so their event doesn't restrict the options.
+    //
+    // Events  :       |--A--|
+    //                     |--B--|    |--C--|
+    // Day     : |-----------------------------|
+    // Options : |--1--|         |------2------|
+
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0830AM, 60), Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0900AM, 60), Arrays.asList(PERSON_B)),
+        new Event("Event 3", TimeRange.fromStartDuration(TIME_1100AM, 60),
+            Arrays.asList(PERSON_C)));
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+
+    FindMeetingQuery query = new FindMeetingQuery();
+    Collection<TimeRange> actual = query.query(new EventIndex(events), request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0830AM, false),
+            TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+    Assert.assertEquals(query.query(events, request), actual);
+  }
+
+  @Test
+  public void emptyIndex() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    Collection<TimeRange> actual =
+        new FindMeetingQuery().query(new EventIndex(Collections.emptySet()), request);
+
+    Assert.assertEquals(Arrays.asList(TimeRange.WHOLE_DAY), actual);
+  }
+}
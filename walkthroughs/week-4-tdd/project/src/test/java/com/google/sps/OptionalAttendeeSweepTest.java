@@ -0,0 +1,149 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class OptionalAttendeeSweepTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+
+  private FindMeetingQuery query;
+
+  @Before
+  public void setUp() {
+    query = new FindMeetingQuery(FindMeetingQuery.Mode.MOST_OPTIONAL_ATTENDEES);
+  }
+
+  @Test
+  public void everyOptionalAttendeeFits() {
+    // When every optional attendee can come, the options are the same as the default mode's.
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+            Arrays.asList(PERSON_B)));
+
+    MeetingRequest request = new MeetingRequest(
+        Arrays.asList(PERSON_A), Arrays.asList(PERSON_B), DURATION_30_MINUTES);
+
+    Collection<TimeRange> expected = new FindMeetingQuery().query(events, request);
+    Assert.assertEquals(expected, query.query(events, request));
+  }
+
+  @Test
+  public void noOptionalAttendeeFitsWithoutAttendees() {
+    // With no attendees and nobody optional able to come at any time, there are no options.
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_B)));
+
+    MeetingRequest request = new MeetingRequest(
+        Collections.emptySet(), Arrays.asList(PERSON_B), DURATION_30_MINUTES);
+
+    Assert.assertEquals(Arrays.asList(), query.query(events, request));
+  }
+
+  @Test
+  public void matchesEveryStartOnRandomCalendars() {
+    Random random = new Random(7);
+
+    for (int calendar = 0; calendar < 100; calendar++) {
+      // Up to 60 optional attendees, far too many to try every subset of them.
+      int peopleCount = random.nextInt(60) + 2;
+      List<String> people = new ArrayList<>();
+      for (int i = 0; i < peopleCount; i++) {
+        people.add("P" + i);
+      }
+      List<Event> events = new ArrayList<>();
+      for (int i = 0; i < peopleCount * 3; i++) {
+        int start = random.nextInt(TimeRange.WHOLE_DAY.duration());
+        int duration = random.nextInt(Math.min(240, TimeRange.WHOLE_DAY.end() - start) + 1);
+        int firstAttendee = random.nextInt(peopleCount);
+        events.add(new Event("Event " + i, TimeRange.fromStartDuration(start, duration),
+            people.subList(firstAttendee, Math.min(firstAttendee + 2, peopleCount))));
+      }
+      int attendeeCount = random.nextInt(3);
+      MeetingRequest request = new MeetingRequest(people.subList(0, attendeeCount),
+          people.subList(attendeeCount, peopleCount), random.nextInt(180) + 1);
+
+      Collection<TimeRange> expected = tryEveryStart(events, request);
+      Assert.assertEquals(expected, query.query(events, request));
+      Assert.assertEquals(expected, query.query(new EventIndex(events), request));
+    }
+  }
+
+  /**
+   * Finds the options by counting the optional attendees free for a meeting at every start.
+   */
+  private static List<TimeRange> tryEveryStart(Collection<Event> events, MeetingRequest request) {
+    int duration = (int) request.getDuration();
+    int lastStart = TimeRange.WHOLE_DAY.end() - duration;
+    int[] fits = new int[lastStart + 1];
+    int mostFit = -1;
+    for (int start = 0; start <= lastStart; start++) {
+      TimeRange meeting = TimeRange.fromStartDuration(start, duration);
+      List<String> missed = new ArrayList<>();
+      for (Event event : events) {
+        if (event.getWhen().overlaps(meeting) && event.getWhen().duration() > 0) {
+          missed.addAll(event.getAttendees());
+        }
+      }
+      if (!Collections.disjoint(missed, request.getAttendees())) {
+        fits[start] = -1;
+        continue;
+      }
+      fits[start] = 0;
+      for (String optionalAttendee : request.getOptionalAttendees()) {
+        if (!missed.contains(optionalAttendee)) {
+          fits[start]++;
+        }
+      }
+      mostFit = Math.max(mostFit, fits[start]);
+    }
+
+    List<TimeRange> options = new ArrayList<>();
+    boolean nobodyFits = request.getAttendees().isEmpty() && mostFit == 0
+        && !request.getOptionalAttendees().isEmpty();
+    if (mostFit < 0 || nobodyFits) {
+      return options;
+    }
+    int runStart = -1;
+    for (int start = 0; start <= lastStart + 1; start++) {
+      boolean best = start <= lastStart && fits[start] == mostFit;
+      if (best && runStart < 0) {
+        runStart = start;
+      } else if (!best && runStart >= 0) {
+        options.add(TimeRange.fromStartEnd(runStart, start - 1 + duration, false));
+        runStart = -1;
+      }
+    }
+    return options;
+  }
+}